@@ -0,0 +1,58 @@
+package dev.marievski.fooddelivery.archive;
+
+import dev.marievski.fooddelivery.order.OrderStatus;
+import jakarta.persistence.*;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Холодная копия завершённого заказа (orders_archive). Только чтение: строки сюда переносит OrderArchiver
+ * нативным INSERT ... SELECT. Связи с users/restaurants — простыми id, без внешних ключей.
+ */
+@Entity
+@Immutable
+@Table(name = "orders_archive", indexes = {
+        @Index(name = "idx_orders_archive_user_id", columnList = "user_id, id")
+})
+public class ArchivedOrder {
+
+    @Id
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private OrderStatus status;
+
+    @Column(precision = 12, scale = 2, nullable = false)
+    private BigDecimal total;
+
+    @Column(name = "eta_minutes", nullable = false)
+    private int etaMinutes;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    @Column(nullable = false)
+    private Instant archivedAt;
+
+    @OneToMany(mappedBy = "order")
+    private List<ArchivedOrderItem> items = new ArrayList<>();
+
+    protected ArchivedOrder() {}
+
+    public Long getId() { return id; }
+    public Long getUserId() { return userId; }
+    public OrderStatus getStatus() { return status; }
+    public BigDecimal getTotal() { return total; }
+    public int getEtaMinutes() { return etaMinutes; }
+    public Instant getCreatedAt() { return createdAt; }
+    public Instant getArchivedAt() { return archivedAt; }
+    public List<ArchivedOrderItem> getItems() { return items; }
+}
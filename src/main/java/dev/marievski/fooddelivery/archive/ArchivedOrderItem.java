@@ -0,0 +1,50 @@
+package dev.marievski.fooddelivery.archive;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+
+@Entity
+@Immutable
+@Table(name = "order_items_archive", indexes = {
+        @Index(name = "idx_order_items_archive_order_id", columnList = "order_id")
+})
+public class ArchivedOrderItem {
+
+    @Id
+    private Long id;
+
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
+    @JoinColumn(name = "order_id", nullable = false)
+    private ArchivedOrder order;
+
+    @Column(name = "restaurant_id", nullable = false)
+    private Long restaurantId;
+
+    @Column(nullable = false)
+    private String itemName;
+
+    @Column(nullable = false)
+    private String variationLabel;
+
+    @Column(nullable = false, precision = 12, scale = 2)
+    private BigDecimal price;
+
+    @Column(nullable = false)
+    private int quantity;
+
+    @Column(nullable = false)
+    private int cookingMinutes;
+
+    protected ArchivedOrderItem() {}
+
+    public Long getId() { return id; }
+    public ArchivedOrder getOrder() { return order; }
+    public Long getRestaurantId() { return restaurantId; }
+    public String getItemName() { return itemName; }
+    public String getVariationLabel() { return variationLabel; }
+    public BigDecimal getPrice() { return price; }
+    public int getQuantity() { return quantity; }
+    public int getCookingMinutes() { return cookingMinutes; }
+}
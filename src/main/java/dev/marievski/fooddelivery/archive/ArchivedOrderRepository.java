@@ -0,0 +1,67 @@
+package dev.marievski.fooddelivery.archive;
+
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Архив заказов: чтение и перенос пачками. Перенос — нативные INSERT ... SELECT / DELETE по списку id,
+ * без загрузки сущностей в persistence context.
+ */
+public interface ArchivedOrderRepository extends JpaRepository<ArchivedOrder, Long> {
+
+    @EntityGraph(attributePaths = {"items"})
+    @Query("SELECT o FROM ArchivedOrder o WHERE o.id = :id")
+    Optional<ArchivedOrder> fetchById(@Param("id") Long id);
+
+    /** Следующая пачка кандидатов в архив по keyset (id > afterId). Завершённые статусы уже не меняются. */
+    @Query(value = """
+            SELECT o.id FROM orders o
+            WHERE o.status IN ('DELIVERED', 'CANCELLED') AND o.created_at < :cutoff AND o.id > :afterId
+            ORDER BY o.id
+            LIMIT :limit""", nativeQuery = true)
+    List<Long> findArchivableIds(@Param("cutoff") Instant cutoff,
+                                 @Param("afterId") long afterId,
+                                 @Param("limit") int limit);
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO orders_archive (id, user_id, status, total, eta_minutes, created_at, archived_at)
+            SELECT o.id, o.user_id, o.status, o.total, o.eta_minutes, o.created_at, :now
+            FROM orders o WHERE o.id IN :ids""", nativeQuery = true)
+    int copyOrders(@Param("ids") Collection<Long> ids, @Param("now") Instant now);
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO order_items_archive
+                (id, order_id, restaurant_id, item_name, variation_label, price, quantity, cooking_minutes)
+            SELECT i.id, i.order_id, i.restaurant_id, i.item_name, i.variation_label, i.price, i.quantity, i.cooking_minutes
+            FROM order_items i WHERE i.order_id IN :ids""", nativeQuery = true)
+    int copyItems(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO payments_archive (id, order_id, amount, status, external_id, created_at, updated_at)
+            SELECT p.id, p.order_id, p.amount, p.status, p.external_id, p.created_at, p.updated_at
+            FROM payments p WHERE p.order_id IN :ids""", nativeQuery = true)
+    int copyPayments(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query(value = "DELETE FROM payments WHERE order_id IN :ids", nativeQuery = true)
+    int deletePayments(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query(value = "DELETE FROM order_items WHERE order_id IN :ids", nativeQuery = true)
+    int deleteItems(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query(value = "DELETE FROM orders WHERE id IN :ids", nativeQuery = true)
+    int deleteOrders(@Param("ids") Collection<Long> ids);
+}
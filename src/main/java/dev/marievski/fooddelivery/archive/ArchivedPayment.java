@@ -0,0 +1,49 @@
+package dev.marievski.fooddelivery.archive;
+
+import dev.marievski.fooddelivery.payment.PaymentStatus;
+import jakarta.persistence.*;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+@Entity
+@Immutable
+@Table(name = "payments_archive", indexes = {
+        @Index(name = "idx_payments_archive_order_id", columnList = "order_id"),
+        @Index(name = "idx_payments_archive_external_id", columnList = "external_id")
+})
+public class ArchivedPayment {
+
+    @Id
+    private Long id;
+
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+
+    @Column(nullable = false, precision = 12, scale = 2)
+    private BigDecimal amount;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private PaymentStatus status;
+
+    @Column(name = "external_id", length = 100)
+    private String externalId;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    @Column(nullable = false)
+    private Instant updatedAt;
+
+    protected ArchivedPayment() {}
+
+    public Long getId() { return id; }
+    public Long getOrderId() { return orderId; }
+    public BigDecimal getAmount() { return amount; }
+    public PaymentStatus getStatus() { return status; }
+    public String getExternalId() { return externalId; }
+    public Instant getCreatedAt() { return createdAt; }
+    public Instant getUpdatedAt() { return updatedAt; }
+}
@@ -0,0 +1,12 @@
+package dev.marievski.fooddelivery.archive;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface ArchivedPaymentRepository extends JpaRepository<ArchivedPayment, Long> {
+
+    List<ArchivedPayment> findByOrderId(Long orderId);
+
+    boolean existsByExternalId(String externalId);
+}
@@ -0,0 +1,41 @@
+package dev.marievski.fooddelivery.archive;
+
+import dev.marievski.fooddelivery.archive.mapper.ArchiveMapper;
+import dev.marievski.fooddelivery.order.dto.OrderDto;
+import dev.marievski.fooddelivery.payment.dto.PaymentResponse;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+
+/** Чтение из архива — запасной путь для API, когда заказа уже нет в горячих таблицах. */
+@Service
+public class OrderArchiveService {
+
+    private final ArchivedOrderRepository orders;
+    private final ArchivedPaymentRepository payments;
+    private final ArchiveMapper mapper;
+
+    public OrderArchiveService(ArchivedOrderRepository orders, ArchivedPaymentRepository payments,
+                               ArchiveMapper mapper) {
+        this.orders = orders;
+        this.payments = payments;
+        this.mapper = mapper;
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<OrderDto> findOrder(Long id) {
+        return orders.fetchById(id).map(mapper::toDto);
+    }
+
+    @Transactional(readOnly = true)
+    public List<PaymentResponse> findPayments(Long orderId) {
+        return mapper.toPaymentDtoList(payments.findByOrderId(orderId));
+    }
+
+    @Transactional(readOnly = true)
+    public boolean paymentExternalIdExists(String externalId) {
+        return payments.existsByExternalId(externalId);
+    }
+}
@@ -0,0 +1,80 @@
+package dev.marievski.fooddelivery.archive;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Перенос завершённых (DELIVERED/CANCELLED) заказов старше app.archive.age вместе с позициями и оплатами
+ * в *_archive таблицы. Горячие orders/order_items/payments остаются маленькими.
+ * <p>
+ * Идём по id keyset-пачками по app.archive.chunk-size, каждая пачка — своя короткая транзакция
+ * (копия + удаление), поэтому блокировки держатся недолго, а прерванный прогон просто продолжится в следующий раз.
+ * order_summaries не трогаем — списки заказов продолжают их показывать, а детали читаются из архива.
+ */
+@Component
+public class OrderArchiver {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderArchiver.class);
+
+    private final ArchivedOrderRepository archive;
+    private final TransactionTemplate tx;
+    private final boolean enabled;
+    private final Duration age;
+    private final int chunkSize;
+
+    public OrderArchiver(ArchivedOrderRepository archive,
+                         TransactionTemplate tx,
+                         @Value("${app.archive.enabled:true}") boolean enabled,
+                         @Value("${app.archive.age:P90D}") Duration age,
+                         @Value("${app.archive.chunk-size:500}") int chunkSize) {
+        this.archive = archive;
+        this.tx = tx;
+        this.enabled = enabled;
+        this.age = age;
+        this.chunkSize = chunkSize;
+    }
+
+    @Scheduled(fixedDelayString = "${app.archive.interval:PT1H}", initialDelayString = "${app.archive.interval:PT1H}")
+    public void run() {
+        if (!enabled) return;
+        int moved = archiveCreatedBefore(Instant.now().minus(age));
+        if (moved > 0) log.info("Archived {} orders older than {}", moved, age);
+    }
+
+    /** Переносит все подходящие заказы, созданные раньше {@code cutoff}; возвращает их число. */
+    public int archiveCreatedBefore(Instant cutoff) {
+        long afterId = 0;
+        int total = 0;
+        while (true) {
+            long from = afterId;
+            List<Long> ids = tx.execute(status -> moveChunk(cutoff, from));
+            if (ids == null || ids.isEmpty()) return total;
+            total += ids.size();
+            if (ids.size() < chunkSize) return total;
+            afterId = ids.get(ids.size() - 1);
+        }
+    }
+
+    private List<Long> moveChunk(Instant cutoff, long afterId) {
+        List<Long> ids = archive.findArchivableIds(cutoff, afterId, chunkSize);
+        if (ids.isEmpty()) return ids;
+
+        Instant now = Instant.now();
+        archive.copyOrders(ids, now);
+        archive.copyItems(ids);
+        archive.copyPayments(ids);
+        // дети раньше родителя — внешние ключи
+        archive.deletePayments(ids);
+        archive.deleteItems(ids);
+        archive.deleteOrders(ids);
+        return ids;
+    }
+}
@@ -0,0 +1,27 @@
+package dev.marievski.fooddelivery.archive.mapper;
+
+import dev.marievski.fooddelivery.archive.ArchivedOrder;
+import dev.marievski.fooddelivery.archive.ArchivedOrderItem;
+import dev.marievski.fooddelivery.archive.ArchivedPayment;
+import dev.marievski.fooddelivery.order.dto.OrderDto;
+import dev.marievski.fooddelivery.order.dto.OrderItemDto;
+import dev.marievski.fooddelivery.payment.dto.PaymentResponse;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+import java.util.List;
+
+/** Архивные сущности отдаются теми же DTO, что и живые — клиенту не видно, откуда пришёл заказ. */
+@Mapper(componentModel = "spring")
+public interface ArchiveMapper {
+
+    @Mapping(target = "status", expression = "java(order.getStatus() != null ? order.getStatus().name() : null)")
+    OrderDto toDto(ArchivedOrder order);
+
+    @Mapping(target = "lineTotal", expression = "java(item.getPrice().multiply(java.math.BigDecimal.valueOf(item.getQuantity())))")
+    OrderItemDto toDto(ArchivedOrderItem item);
+
+    PaymentResponse toDto(ArchivedPayment payment);
+
+    List<PaymentResponse> toPaymentDtoList(List<ArchivedPayment> payments);
+}
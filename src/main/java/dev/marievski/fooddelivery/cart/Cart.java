@@ -1,15 +1,23 @@
 package dev.marievski.fooddelivery.cart;
 
+import dev.marievski.fooddelivery.restaurant.MenuVariation;
 import dev.marievski.fooddelivery.restaurant.Restaurant;
 import dev.marievski.fooddelivery.user.User;
+import dev.marievski.fooddelivery.common.Money;
+import dev.marievski.fooddelivery.common.MoneyConverter;
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
 
+import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "carts")
+@Table(name = "carts", indexes = {
+        // поиск активной корзины пользователя на каждом запросе к корзине
+        @Index(name = "idx_carts_user_active", columnList = "user_id, active")
+})
 public class Cart {
 
     @Id
@@ -31,9 +39,35 @@ public class Cart {
     @Column(nullable = false)
     private boolean active = true;
 
+    /** Счётчик изменений корзины (@Version): штамп котировки и защита от потерянных обновлений. */
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private long revision;
+
     @Column(nullable = false)
     private Instant createdAt = Instant.now();
 
+    /** Последнее изменение позиций или статуса; по нему CartReaper находит брошенные корзины. */
+    private Instant updatedAt = createdAt;
+
+    // --- накопительные итоги: меняются вместе с позициями, чтение и оформление заказа — O(1) ---
+
+    @ColumnDefault("0")
+    @Convert(converter = MoneyConverter.class)
+    @Column(name = "subtotal", nullable = false, precision = 12, scale = 2)
+    private long subtotalCents; // в копейках, см. Money
+
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private int totalQuantity;
+
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private long cookingMinutesSum; // сумма cookingMinutes * quantity
+
+    public static final int COURIER_MINUTES = 10;
+
     // --- getters/setters ---
     public Long getId() { return id; }
 
@@ -46,7 +80,49 @@ public class Cart {
     public List<CartItem> getItems() { return items; }
 
     public boolean isActive() { return active; }
-    public void setActive(boolean active) { this.active = active; }
+    public void setActive(boolean active) {
+        this.active = active;
+        touch();
+    }
+
+    public long getRevision() { return revision; }
 
     public Instant getCreatedAt() { return createdAt; }
+    public Instant getUpdatedAt() { return updatedAt; }
+
+    public void touch() { this.updatedAt = Instant.now(); }
+
+    public BigDecimal getSubtotal() { return Money.toDecimal(subtotalCents); }
+    public long getSubtotalCents() { return subtotalCents; }
+    public int getTotalQuantity() { return totalQuantity; }
+    public long getCookingMinutesSum() { return cookingMinutesSum; }
+
+    /** ETA = среднее время готовки, взвешенное по количеству, + доставка. */
+    public int getEtaMinutes() {
+        return etaMinutes(cookingMinutesSum, totalQuantity);
+    }
+
+    static int etaMinutes(long cookingMinutesSum, int totalQuantity) {
+        if (totalQuantity == 0) return 0;
+        return (int) (cookingMinutesSum / totalQuantity) + COURIER_MINUTES;
+    }
+
+    /** Учесть изменение количества вариации на {@code deltaQty} (отрицательное — уменьшение). */
+    public void applyLine(MenuVariation variation, int deltaQty) {
+        subtotalCents = Money.plus(subtotalCents, Money.times(variation.getPriceCents(), deltaQty));
+        totalQuantity += deltaQty;
+        cookingMinutesSum += (long) variation.getCookingMinutes() * deltaQty;
+        touch();
+    }
+
+    public void resetTotals() {
+        setTotals(0, 0, 0);
+        touch();
+    }
+
+    void setTotals(long subtotalCents, int totalQuantity, long cookingMinutesSum) {
+        this.subtotalCents = subtotalCents;
+        this.totalQuantity = totalQuantity;
+        this.cookingMinutesSum = cookingMinutesSum;
+    }
 }
@@ -1,15 +1,21 @@
 package dev.marievski.fooddelivery.cart;
 
 import dev.marievski.fooddelivery.cart.dto.CartDto;
+import dev.marievski.fooddelivery.cart.dto.CartItemDto;
 import dev.marievski.fooddelivery.cart.dto.AddItemRequest;
+import dev.marievski.fooddelivery.cart.dto.BatchAddItemsRequest;
 import dev.marievski.fooddelivery.cart.mapper.CartItemMapper;
+import dev.marievski.fooddelivery.common.Money;
+import dev.marievski.fooddelivery.order.OrderService;
 import jakarta.validation.Valid;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/cart")
@@ -18,32 +24,73 @@ public class CartController {
     private final CartService cartService;
     private final CartRepository cartRepository;
     private final CartItemMapper cartItemMapper;
+    private final OrderService orderService;
+    private final MemoryCartStore memoryCarts;
 
     public CartController(CartService cartService, CartRepository cartRepository,
-                          CartItemMapper cartItemMapper) {
+                          CartItemMapper cartItemMapper, OrderService orderService,
+                          MemoryCartStore memoryCarts) {
         this.cartService = cartService;
         this.cartRepository = cartRepository;
         this.cartItemMapper = cartItemMapper;
+        this.orderService = orderService;
+        this.memoryCarts = memoryCarts;
     }
 
+    /**
+     * Самый частый запрос — читается плоской проекцией без сущностей.
+     * С quote=true в ответе есть quoteToken (если корзину можно оформить) — его можно передать в POST /orders;
+     * проверкам оформления нужны сущности, поэтому этот вариант идёт через агрегат.
+     */
     @GetMapping
     @Transactional(readOnly = true)
-    public CartDto get(@RequestParam("userId") Long userId) {
-        return cartRepository.findByUserIdAndActiveTrue(userId)
-                .map(this::convertToDto)
-                .orElseGet(() -> createEmptyCartDto(userId));
+    public CartDto get(@RequestParam("userId") Long userId,
+                       @RequestParam(value = "quote", defaultValue = "false") boolean quote) {
+        if (quote) {
+            memoryCarts.flush(userId); // котировка проверяет то, что в БД
+            return cartRepository.findByUserIdAndActiveTrue(userId)
+                    .map(cart -> {
+                        CartDto dto = convertToDto(cart);
+                        dto.setQuoteToken(orderService.quote(cart));
+                        return dto;
+                    })
+                    .orElseGet(() -> createEmptyCartDto(userId));
+        }
+        Optional<CartDto> inMemory = memoryCarts.find(userId);
+        if (inMemory.isPresent()) return inMemory.get();
+        List<CartLineRow> rows = cartRepository.findActiveRows(userId);
+        return rows.isEmpty() ? createEmptyCartDto(userId) : rowsToDto(rows);
     }
 
     @PostMapping("/items")
     @Transactional
     public ResponseEntity<CartDto> addItem(@Valid @RequestBody AddItemRequest req) {
-        Cart cart = cartService.addItem(req.getUserId(), req.getVariationId(), req.getQuantity());
-        CartDto body = convertToDto(cart);
+        CartDto body = add(req.getUserId(), List.of(new CartService.CartLine(req.getVariationId(), req.getQuantity())));
         return ResponseEntity.ok()
                 .location(URI.create("/cart?userId=" + req.getUserId()))
                 .body(body);
     }
 
+    /** Несколько позиций за один запрос (повтор заказа, групповой заказ): всё или ничего. */
+    @PostMapping("/items:batch")
+    @Transactional
+    public ResponseEntity<CartDto> addItems(@Valid @RequestBody BatchAddItemsRequest req) {
+        List<CartService.CartLine> lines = req.getItems().stream()
+                .map(l -> new CartService.CartLine(l.getVariationId(), l.getQuantity()))
+                .toList();
+        return ResponseEntity.ok()
+                .location(URI.create("/cart?userId=" + req.getUserId()))
+                .body(add(req.getUserId(), lines));
+    }
+
+    /** В режиме app.carts.storage=memory — в корзину в памяти (запись в БД отложенная), иначе сразу в БД. */
+    private CartDto add(Long userId, List<CartService.CartLine> lines) {
+        if (memoryCarts.enabled()) {
+            return memoryCarts.add(userId, cartService.resolve(lines));
+        }
+        return convertToDto(cartService.addItems(userId, lines));
+    }
+
     @DeleteMapping
     @Transactional
     public ResponseEntity<Void> clear(@RequestParam("userId") Long userId) {
@@ -62,13 +109,37 @@ public class CartController {
         return dto;
     }
 
+    private CartDto rowsToDto(List<CartLineRow> rows) {
+        CartLineRow head = rows.get(0);
+        CartDto dto = new CartDto();
+        dto.setId(head.cartId());
+        dto.setUserId(head.userId());
+        dto.setRestaurantId(head.restaurantId());
+        dto.setSubtotal(Money.toDecimal(head.subtotalCents()));
+        dto.setEtaMinutes(Cart.etaMinutes(head.cookingMinutesSum(), head.totalQuantity()));
+        List<CartItemDto> items = new ArrayList<>(rows.size());
+        for (CartLineRow row : rows) {
+            if (row.itemId() == null) continue; // пустая корзина
+            CartItemDto item = new CartItemDto();
+            item.setId(row.itemId());
+            item.setVariationId(row.variationId());
+            item.setLabel(row.label());
+            item.setPrice(Money.toDecimal(row.priceCents()));
+            item.setQuantity(row.quantity());
+            item.setLineTotal(Money.toDecimal(Money.times(row.priceCents(), row.quantity())));
+            items.add(item);
+        }
+        dto.setItems(items);
+        return dto;
+    }
+
     private CartDto convertToDto(Cart cart) {
         CartDto dto = new CartDto();
         dto.setId(cart.getId());
         dto.setUserId(cart.getUser().getId());
         dto.setRestaurantId(cart.getRestaurant() != null ? cart.getRestaurant().getId() : null);
-        dto.setSubtotal(cartService.subtotal(cart));
-        dto.setEtaMinutes(cartService.etaMinutes(cart));
+        dto.setSubtotal(cart.getSubtotal());
+        dto.setEtaMinutes(cart.getEtaMinutes());
         dto.setItems(cart.getItems().stream()
                 .map(cartItemMapper::toDto)
                 .toList());
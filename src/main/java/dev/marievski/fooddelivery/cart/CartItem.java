@@ -6,9 +6,12 @@ import jakarta.validation.constraints.Min;
 
 /**
  * Позиция в корзине: конкретная вариация блюда и количество.
+ * На одну вариацию в корзине — одна строка (уникальный ключ, на нём держится upsert в {@link CartLineUpsert}).
  */
 @Entity
-@Table(name = "cart_items")
+@Table(name = "cart_items",
+        uniqueConstraints = @UniqueConstraint(name = "uk_cart_items_cart_variation",
+                columnNames = {"cart_id", "variation_id"}))
 public class CartItem {
 
     @Id
@@ -1,11 +1,13 @@
 package dev.marievski.fooddelivery.cart;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.Optional;
 
 public interface CartItemRepository extends JpaRepository<CartItem, Long> {
 
-    /** Нужен, чтобы не плодить дубликаты строк на одну и ту же вариацию. */
-    Optional<CartItem> findByCartIdAndVariationId(Long cartId, Long variationId);
+    @Query("SELECT i.cart.user.id FROM CartItem i WHERE i.id = :id")
+    Optional<Long> findUserIdById(@Param("id") Long id);
 }
@@ -0,0 +1,64 @@
+package dev.marievski.fooddelivery.cart;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+
+/**
+ * До обновления схемы Hibernate сливает повторяющиеся строки корзины (cart_id, variation_id) в одну
+ * с суммой quantity: в старых базах они есть, и без этого ddl-auto не добавит uk_cart_items_cart_variation
+ * (ошибку он только залогирует), а upsert в {@link CartLineUpsert} без ключа падает на каждом добавлении.
+ * Итоги корзин не меняются — они уже посчитаны по всем строкам.
+ */
+@Component
+class CartItemsDeduplication {
+
+    private static final Logger log = LoggerFactory.getLogger(CartItemsDeduplication.class);
+
+    private static final String COUNT_DUPLICATES = """
+            SELECT COUNT(*) FROM (SELECT cart_id, variation_id FROM cart_items
+                                  GROUP BY cart_id, variation_id HAVING COUNT(*) > 1) d""";
+
+    private static final String SUM_INTO_FIRST = """
+            UPDATE cart_items SET quantity = (SELECT SUM(d.quantity) FROM cart_items d
+                                              WHERE d.cart_id = cart_items.cart_id
+                                                AND d.variation_id = cart_items.variation_id)
+            WHERE id IN (SELECT MIN(id) FROM cart_items GROUP BY cart_id, variation_id HAVING COUNT(*) > 1)""";
+
+    private static final String DELETE_REST = """
+            DELETE FROM cart_items
+            WHERE id NOT IN (SELECT MIN(id) FROM cart_items GROUP BY cart_id, variation_id)""";
+
+    CartItemsDeduplication(DataSource dataSource) {
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        long duplicates;
+        try {
+            duplicates = jdbc.queryForObject(COUNT_DUPLICATES, Long.class);
+        } catch (BadSqlGrammarException noTable) {
+            return; // новая база — таблицу создаст Hibernate, уже с ключом
+        }
+        if (duplicates == 0) return;
+
+        // свой менеджер транзакций: JPA-шный появится только после EntityManagerFactory, которая ждёт нас
+        Integer removed = new TransactionTemplate(new DataSourceTransactionManager(dataSource)).execute(status -> {
+            jdbc.update(SUM_INTO_FIRST);
+            return jdbc.update(DELETE_REST);
+        });
+        log.info("Merged {} duplicate cart lines ({} cart/variation pairs)", removed, duplicates);
+    }
+
+    /** Схему обновляет создание EntityManagerFactory — она должна дождаться чистки. */
+    @Component
+    static class JpaDependsOnDeduplication extends EntityManagerFactoryDependsOnPostProcessor {
+        JpaDependsOnDeduplication() {
+            super(CartItemsDeduplication.class);
+        }
+    }
+}
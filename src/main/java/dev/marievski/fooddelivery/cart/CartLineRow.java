@@ -0,0 +1,18 @@
+package dev.marievski.fooddelivery.cart;
+
+/**
+ * Плоская строка чтения корзины для GET /cart: поля корзины повторяются в каждой строке позиции.
+ * У пустой корзины одна строка с null в полях позиции (LEFT JOIN).
+ */
+public record CartLineRow(Long cartId,
+                          Long userId,
+                          Long restaurantId,
+                          long subtotalCents,
+                          int totalQuantity,
+                          long cookingMinutesSum,
+                          Long itemId,
+                          Long variationId,
+                          String label,
+                          Long priceCents,
+                          Integer quantity) {
+}
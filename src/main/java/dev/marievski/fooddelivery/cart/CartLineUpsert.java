@@ -0,0 +1,68 @@
+package dev.marievski.fooddelivery.cart;
+
+import org.springframework.boot.jdbc.DatabaseDriver;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Атомарное "добавить или увеличить количество" (и "добавить или выставить" для выгрузки корзин из памяти)
+ * для строк корзины — один оператор на строку, все строки пачки уходят одним JDBC-батчем. Гонку двух параллельных добавлений разрешает
+ * уникальный ключ (cart_id, variation_id), а не чтение-потом-запись в приложении.
+ * Диалект определяется один раз по метаданным соединения: Postgres — INSERT ... ON CONFLICT, иначе (H2) — MERGE.
+ */
+@Component
+class CartLineUpsert {
+
+    private static final String POSTGRES = """
+            INSERT INTO cart_items (cart_id, variation_id, quantity) VALUES (?, ?, ?)
+            ON CONFLICT (cart_id, variation_id) DO UPDATE SET quantity = cart_items.quantity + EXCLUDED.quantity""";
+
+    private static final String MERGE = """
+            MERGE INTO cart_items t
+            USING (VALUES (CAST(? AS BIGINT), CAST(? AS BIGINT), CAST(? AS INT))) s (cart_id, variation_id, quantity)
+            ON t.cart_id = s.cart_id AND t.variation_id = s.variation_id
+            WHEN MATCHED THEN UPDATE SET quantity = t.quantity + s.quantity
+            WHEN NOT MATCHED THEN INSERT (cart_id, variation_id, quantity) VALUES (s.cart_id, s.variation_id, s.quantity)""";
+
+    private static final String POSTGRES_SET = """
+            INSERT INTO cart_items (cart_id, variation_id, quantity) VALUES (?, ?, ?)
+            ON CONFLICT (cart_id, variation_id) DO UPDATE SET quantity = EXCLUDED.quantity""";
+
+    private static final String MERGE_SET = """
+            MERGE INTO cart_items t
+            USING (VALUES (CAST(? AS BIGINT), CAST(? AS BIGINT), CAST(? AS INT))) s (cart_id, variation_id, quantity)
+            ON t.cart_id = s.cart_id AND t.variation_id = s.variation_id
+            WHEN MATCHED THEN UPDATE SET quantity = s.quantity
+            WHEN NOT MATCHED THEN INSERT (cart_id, variation_id, quantity) VALUES (s.cart_id, s.variation_id, s.quantity)""";
+
+    private final JdbcTemplate jdbc;
+    private final String sql;
+    private final String setSql;
+
+    CartLineUpsert(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+        String product = jdbc.execute((ConnectionCallback<String>) c -> c.getMetaData().getDatabaseProductName());
+        boolean postgres = DatabaseDriver.fromProductName(product) == DatabaseDriver.POSTGRESQL;
+        this.sql = postgres ? POSTGRES : MERGE;
+        this.setSql = postgres ? POSTGRES_SET : MERGE_SET;
+    }
+
+    /** Увеличить количество вариаций в корзине (variationId -> +quantity), создавая недостающие строки. */
+    void addQuantities(Long cartId, Map<Long, Integer> quantities) {
+        List<Object[]> args = new ArrayList<>(quantities.size());
+        for (Map.Entry<Long, Integer> e : quantities.entrySet()) {
+            args.add(new Object[]{cartId, e.getKey(), e.getValue()});
+        }
+        jdbc.batchUpdate(sql, args);
+    }
+
+    /** Выставить количества строк (cartId, variationId, quantity) — id уже существующих строк сохраняются. */
+    void setQuantities(List<Object[]> lines) {
+        if (!lines.isEmpty()) jdbc.batchUpdate(setSql, lines);
+    }
+}
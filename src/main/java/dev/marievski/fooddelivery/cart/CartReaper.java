@@ -0,0 +1,90 @@
+package dev.marievski.fooddelivery.cart;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Фоновая чистка carts/cart_items: оформленные (неактивные) корзины старше app.carts.reaper.inactive-retention
+ * и брошенные активные, не менявшиеся дольше app.carts.reaper.abandoned-retention.
+ * <p>
+ * Как и архивация заказов — keyset-пачками по id, короткая транзакция на пачку. За один прогон —
+ * не больше max-chunks пачек, остальное доберёт следующий, чтобы не занимать БД и планировщик надолго.
+ * Метрики: carts.reaper.purged (удалено корзин), carts.reaper.chunk (время пачки).
+ */
+@Component
+public class CartReaper {
+
+    private static final Logger log = LoggerFactory.getLogger(CartReaper.class);
+
+    private final CartRepository carts;
+    private final TransactionTemplate tx;
+    private final boolean enabled;
+    private final Duration inactiveRetention;
+    private final Duration abandonedRetention;
+    private final int chunkSize;
+    private final int maxChunks;
+    private final Counter purged;
+    private final Timer chunkTimer;
+
+    public CartReaper(CartRepository carts,
+                      TransactionTemplate tx,
+                      MeterRegistry meterRegistry,
+                      @Value("${app.carts.reaper.enabled:true}") boolean enabled,
+                      @Value("${app.carts.reaper.inactive-retention:P7D}") Duration inactiveRetention,
+                      @Value("${app.carts.reaper.abandoned-retention:P30D}") Duration abandonedRetention,
+                      @Value("${app.carts.reaper.chunk-size:500}") int chunkSize,
+                      @Value("${app.carts.reaper.max-chunks:20}") int maxChunks) {
+        this.carts = carts;
+        this.tx = tx;
+        this.enabled = enabled;
+        this.inactiveRetention = inactiveRetention;
+        this.abandonedRetention = abandonedRetention;
+        this.chunkSize = chunkSize;
+        this.maxChunks = maxChunks;
+        this.purged = Counter.builder("carts.reaper.purged").register(meterRegistry);
+        this.chunkTimer = Timer.builder("carts.reaper.chunk").register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.carts.reaper.interval:PT15M}", initialDelayString = "${app.carts.reaper.interval:PT15M}")
+    public void run() {
+        if (!enabled) return;
+        Instant now = Instant.now();
+        int removed = reap(now.minus(inactiveRetention), now.minus(abandonedRetention));
+        if (removed > 0) log.info("Reaped {} stale carts", removed);
+    }
+
+    /** Удаляет подходящие корзины вместе с позициями; возвращает их число. */
+    public int reap(Instant inactiveCutoff, Instant abandonedCutoff) {
+        long afterId = 0;
+        int total = 0;
+        for (int chunk = 0; chunk < maxChunks; chunk++) {
+            long from = afterId;
+            List<Long> ids = chunkTimer.record(() -> tx.execute(status -> deleteChunk(inactiveCutoff, abandonedCutoff, from)));
+            if (ids == null || ids.isEmpty()) break;
+            total += ids.size();
+            purged.increment(ids.size());
+            if (ids.size() < chunkSize) break;
+            afterId = ids.get(ids.size() - 1);
+        }
+        return total;
+    }
+
+    private List<Long> deleteChunk(Instant inactiveCutoff, Instant abandonedCutoff, long afterId) {
+        List<Long> ids = carts.lockReapableIds(inactiveCutoff, abandonedCutoff, afterId, chunkSize);
+        if (ids.isEmpty()) return ids;
+        carts.deleteItemsOf(ids);
+        carts.deleteByIds(ids);
+        return ids;
+    }
+}
@@ -2,9 +2,13 @@ package dev.marievski.fooddelivery.cart;
 
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 
 public interface CartRepository extends JpaRepository<Cart, Long> {
@@ -12,4 +16,82 @@ public interface CartRepository extends JpaRepository<Cart, Long> {
     @EntityGraph(attributePaths = {"items", "items.variation", "items.variation.item", "user", "restaurant"})
     @Query("SELECT c FROM Cart c WHERE c.user.id = :userId AND c.active = true")
     Optional<Cart> findByUserIdAndActiveTrue(@Param("userId") Long userId);
-}
\ No newline at end of file
+
+    /**
+     * Активная корзина пользователя плоскими строками (корзина + позиция + вариация) — одним запросом
+     * и без managed-сущностей: для чтения не нужны ни гидрация, ни снимки для dirty checking.
+     */
+    @Query("""
+            SELECT new dev.marievski.fooddelivery.cart.CartLineRow(
+                c.id, c.user.id, c.restaurant.id, c.subtotalCents, c.totalQuantity, c.cookingMinutesSum,
+                i.id, v.id, v.label, v.priceCents, i.quantity)
+            FROM Cart c
+            LEFT JOIN c.items i
+            LEFT JOIN i.variation v
+            WHERE c.user.id = :userId AND c.active = true
+            ORDER BY i.id""")
+    List<CartLineRow> findActiveRows(@Param("userId") Long userId);
+
+    @Query("SELECT c.id FROM Cart c WHERE c.user.id = :userId AND c.active = true")
+    Optional<Long> findActiveIdByUserId(@Param("userId") Long userId);
+
+    /**
+     * Атомарно привязать корзину к ресторану и прибавить дельты итогов.
+     * Версию (@Version) поднимаем сами — как и при изменении через сущность.
+     * 0 — корзина уже привязана к другому ресторану (п.51). Строка корзины остаётся заблокированной
+     * до конца транзакции, так что параллельные добавления в одну корзину выстраиваются в БД.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = """
+            UPDATE carts SET restaurant_id = :restaurantId,
+                subtotal = subtotal + :subtotal,
+                total_quantity = total_quantity + :quantity,
+                cooking_minutes_sum = cooking_minutes_sum + :cookingMinutes,
+                updated_at = CURRENT_TIMESTAMP,
+                revision = revision + 1
+            WHERE id = :cartId AND (restaurant_id IS NULL OR restaurant_id = :restaurantId)""", nativeQuery = true)
+    int addToTotals(@Param("cartId") Long cartId,
+                    @Param("restaurantId") Long restaurantId,
+                    @Param("subtotal") BigDecimal subtotal,
+                    @Param("quantity") int quantity,
+                    @Param("cookingMinutes") long cookingMinutes);
+
+    /** Пересчитать итоги активных корзин, созданных до появления колонок итогов (там по умолчанию 0). */
+    @Modifying
+    @Query(value = """
+            UPDATE carts c SET
+                subtotal = (SELECT COALESCE(SUM(v.price * i.quantity), 0)
+                            FROM cart_items i JOIN menu_variations v ON v.id = i.variation_id WHERE i.cart_id = c.id),
+                total_quantity = (SELECT COALESCE(SUM(i.quantity), 0) FROM cart_items i WHERE i.cart_id = c.id),
+                cooking_minutes_sum = (SELECT COALESCE(SUM(v.cooking_minutes * i.quantity), 0)
+                            FROM cart_items i JOIN menu_variations v ON v.id = i.variation_id WHERE i.cart_id = c.id)
+            WHERE c.active = true AND c.total_quantity = 0
+              AND EXISTS (SELECT 1 FROM cart_items i WHERE i.cart_id = c.id)""", nativeQuery = true)
+    int backfillTotals();
+
+    /**
+     * Следующая пачка корзин на удаление по keyset (id > afterId): неактивные (оформленные) старше
+     * inactiveCutoff и брошенные активные старше abandonedCutoff. Строки блокируются до конца транзакции
+     * пачки — параллельное добавление в ту же корзину подождёт, а тронутая корзина из пачки выпадет.
+     * Корзины до появления updated_at считаются по created_at.
+     */
+    @Query(value = """
+            SELECT c.id FROM carts c
+            WHERE c.id > :afterId
+              AND COALESCE(c.updated_at, c.created_at) < CASE WHEN c.active THEN :abandonedCutoff ELSE :inactiveCutoff END
+            ORDER BY c.id
+            LIMIT :limit
+            FOR UPDATE""", nativeQuery = true)
+    List<Long> lockReapableIds(@Param("inactiveCutoff") Instant inactiveCutoff,
+                               @Param("abandonedCutoff") Instant abandonedCutoff,
+                               @Param("afterId") long afterId,
+                               @Param("limit") int limit);
+
+    @Modifying
+    @Query(value = "DELETE FROM cart_items WHERE cart_id IN (:ids)", nativeQuery = true)
+    int deleteItemsOf(@Param("ids") List<Long> ids);
+
+    @Modifying
+    @Query(value = "DELETE FROM carts WHERE id IN (:ids)", nativeQuery = true)
+    int deleteByIds(@Param("ids") List<Long> ids);
+}
@@ -1,32 +1,48 @@
 package dev.marievski.fooddelivery.cart;
 
+import dev.marievski.fooddelivery.common.ApiBadRequestException;
+import dev.marievski.fooddelivery.common.ApiConflictException;
+import dev.marievski.fooddelivery.common.Money;
+import dev.marievski.fooddelivery.restaurant.MenuCatalog;
 import dev.marievski.fooddelivery.restaurant.MenuVariation;
-import dev.marievski.fooddelivery.restaurant.MenuVariationRepository;
-import dev.marievski.fooddelivery.restaurant.Restaurant;
 import dev.marievski.fooddelivery.user.User;
 import dev.marievski.fooddelivery.user.UserRepository;
+import org.hibernate.Hibernate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 
 @Service
 public class CartService {
 
+    private static final Logger log = LoggerFactory.getLogger(CartService.class);
+
     private final CartRepository carts;
     private final CartItemRepository items;
-    private final MenuVariationRepository variations;
+    private final MenuCatalog catalog;
     private final UserRepository users;
+    private final CartLineUpsert lineUpsert;
+    private final MemoryCartStore memoryCarts;
 
     public CartService(CartRepository carts,
                        CartItemRepository items,
-                       MenuVariationRepository variations,
-                       UserRepository users) {
+                       MenuCatalog catalog,
+                       UserRepository users,
+                       CartLineUpsert lineUpsert,
+                       MemoryCartStore memoryCarts) {
         this.carts = carts;
         this.items = items;
-        this.variations = variations;
+        this.catalog = catalog;
         this.users = users;
+        this.lineUpsert = lineUpsert;
+        this.memoryCarts = memoryCarts;
     }
 
 
@@ -44,53 +60,105 @@ public class CartService {
     /** Добавить вариацию блюда в корзину (проверяем ресторан и доступность). */
     @Transactional
     public Cart addItem(Long userId, Long variationId, int qty) {
-        if (qty <= 0) throw new IllegalArgumentException("Количество должно быть положительным");
+        return addItems(userId, List.of(new CartLine(variationId, qty)));
+    }
 
-        Cart cart = getOrCreateActiveCart(userId);
-        MenuVariation v = variations.findById(variationId)
-                .orElseThrow(() -> new IllegalArgumentException("Вариация не найдена"));
+    public record CartLine(Long variationId, int quantity) {}
+
+    /** Проверенная пачка: количества по вариациям (повторы сложены), ресторан (null — пачка пуста) и итоги по каталогу. */
+    public record ResolvedLines(Map<Long, Integer> quantities, Long restaurantId,
+                                long subtotalCents, int totalQuantity, long cookingMinutesSum) {
+        public boolean isEmpty() { return quantities.isEmpty(); }
+    }
 
-        if (!v.isAvailable()) {
-            throw new IllegalStateException("Вариация недоступна для заказа");
+    /**
+     * Проверить пачку позиций без записи: количества, существование вариаций и правила п.51/п.60 на всю пачку.
+     * Цены, доступность и ресторан берутся из MenuCatalog, без запроса к БД (неизвестные каталогу id
+     * догружаются одним IN-запросом). Ресторан самой корзины проверяет уже тот, кто пишет.
+     */
+    public ResolvedLines resolve(Collection<CartLine> lines) {
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        for (CartLine line : lines) {
+            if (line.quantity() <= 0) {
+                throw new ApiBadRequestException("BAD_QUANTITY", "Количество должно быть положительным");
+            }
+            quantities.merge(line.variationId(), line.quantity(), Math::addExact);
+        }
+        if (quantities.isEmpty()) return new ResolvedLines(quantities, null, 0, 0, 0);
+
+        List<Long> unknown = quantities.keySet().stream().filter(id -> !catalog.exists(id)).toList();
+        if (!unknown.isEmpty()) {
+            catalog.loadMissing(unknown);
+            List<Long> missing = unknown.stream().filter(id -> !catalog.exists(id)).toList();
+            if (!missing.isEmpty()) {
+                throw new ApiBadRequestException("VARIATION_NOT_FOUND", "Вариация не найдена: " + missing);
+            }
         }
 
-        Restaurant restaurantOfVariation = v.getItem().getRestaurant();
-        if (!restaurantOfVariation.isOpen()) {
+        // п.51/п.60 на всю пачку: вариации доступны, ресторан один и открыт
+        long restaurantId = 0;
+        long subtotal = 0;
+        int quantity = 0;
+        long cooking = 0;
+        for (Map.Entry<Long, Integer> e : quantities.entrySet()) {
+            long id = e.getKey();
+            int q = e.getValue();
+            if (!catalog.isAvailable(id)) {
+                throw new ApiConflictException("VARIATION_UNAVAILABLE", "Вариация недоступна для заказа: " + catalog.label(id));
+            }
+            long r = catalog.restaurantId(id);
+            if (restaurantId == 0) {
+                restaurantId = r;
+            } else if (restaurantId != r) {
+                throw new ApiConflictException("CART_RESTAURANT_MISMATCH",
+                        "Корзина может содержать блюда только из одного ресторана");
+            }
+            subtotal = Money.plus(subtotal, Money.times(catalog.priceCents(id), q));
+            quantity = Math.addExact(quantity, q);
+            cooking += (long) catalog.cookingMinutes(id) * q;
+        }
+        if (!catalog.isRestaurantOpen(restaurantId)) {
             // Новое правило (п.60)
-            throw new IllegalStateException("Ресторан закрыт: нельзя добавлять блюда (п.60)");
+            throw new ApiConflictException("RESTAURANT_CLOSED", "Ресторан закрыт: нельзя добавлять блюда (п.60)");
         }
+        return new ResolvedLines(quantities, restaurantId, subtotal, quantity, cooking);
+    }
 
-        if (cart.getRestaurant() == null) {
-            cart.setRestaurant(restaurantOfVariation); // привязываем корзину к ресторану первой позиции
-        } else if (!cart.getRestaurant().getId().equals(restaurantOfVariation.getId())) {
-            // п.51 — корзина только одного ресторана
-            throw new IllegalStateException("Корзина может содержать блюда только из одного ресторана");
+    /**
+     * Добавить сразу несколько позиций (повтор заказа, групповой заказ) одной транзакцией.
+     * Вариации и правила проверяются один раз на пачку по каталогу, повторы одной вариации схлопываются.
+     * Запись без чтения позиций: итоги корзины и привязка к ресторану — одним UPDATE, строки — атомарным
+     * upsert по (cart_id, variation_id), поэтому параллельные добавления не дублируют строки и не теряют
+     * количество. Любое нарушение — ошибка без частичного добавления.
+     */
+    @Transactional
+    public Cart addItems(Long userId, Collection<CartLine> lines) {
+        ResolvedLines batch = resolve(lines);
+        memoryCarts.flushAndEvict(userId); // в режиме memory корзина могла жить в памяти — пишем поверх актуальной
+        if (batch.isEmpty()) return getOrCreateActiveCart(userId);
+
+        Long cartId = carts.findActiveIdByUserId(userId)
+                .orElseGet(() -> getOrCreateActiveCart(userId).getId());
+        // п.51 — корзина только одного ресторана; проверка и привязка в одном операторе, без гонки
+        if (carts.addToTotals(cartId, batch.restaurantId(), Money.toDecimal(batch.subtotalCents()),
+                batch.totalQuantity(), batch.cookingMinutesSum()) == 0) {
+            throw new ApiConflictException("CART_RESTAURANT_MISMATCH",
+                    "Корзина может содержать блюда только из одного ресторана");
         }
+        lineUpsert.addQuantities(cartId, batch.quantities());
 
-        // Если уже есть такая вариация — увеличиваем количество, иначе добавляем новую позицию
-        CartItem existing = items.findByCartIdAndVariationId(cart.getId(), variationId).orElse(null);
-        if (existing != null) {
-            existing.setQuantity(existing.getQuantity() + qty);
-        } else {
-            CartItem ci = new CartItem();
-            ci.setCart(cart);
-            ci.setVariation(v);
-            ci.setQuantity(qty);
-            items.save(ci);
-        }
-        return cart;
+        return carts.findByUserIdAndActiveTrue(userId).orElseThrow();
     }
 
     //* Изменить количество позиции. qty<=0 -> удаление.
     @Transactional
     public Cart updateItemQuantity(Long itemId, int qty) {
+        flushOwnerOf(itemId);
         CartItem it = items.findById(itemId).orElseThrow(() -> new IllegalArgumentException("Позиция корзины не найдена"));
         if (qty <= 0) {
-            Cart c = it.getCart();
-            items.delete(it);
-            if (c.getItems().isEmpty()) c.setRestaurant(null);
-            return c;
+            return deleteLine(it);
         }
+        it.getCart().applyLine(it.getVariation(), qty - it.getQuantity());
         it.setQuantity(qty);
         return it.getCart();
     }
@@ -98,36 +166,86 @@ public class CartService {
     //Удалить позицию
     @Transactional
     public Cart removeItem(Long itemId) {
+        flushOwnerOf(itemId);
         CartItem it = items.findById(itemId).orElseThrow(() -> new IllegalArgumentException("Позиция корзины не найдена"));
-        Cart c = it.getCart();
-        items.delete(it);
-        if (c.getItems().isEmpty()) c.setRestaurant(null);
-        return c;
+        return deleteLine(it);
     }
 
     // Очистить корзину
     @Transactional
     public void clear(Long userId) {
+        if (memoryCarts.enabled()) {
+            memoryCarts.clear(userId);
+            return;
+        }
         Cart c = getOrCreateActiveCart(userId);
         c.getItems().clear(); // благодаря orphanRemoval позиции удалятся
         c.setRestaurant(null);
+        c.resetTotals();
+    }
+
+    /**
+     * Сверка накопленных итогов с позициями перед оформлением заказа (позиции к этому моменту уже загружены).
+     * Расхождение возможно, если цена или время готовки вариации изменились после добавления в корзину, —
+     * тогда итоги пересчитываются по текущему меню.
+     */
+    public void verifyTotals(Cart cart) {
+        Totals actual = totalsOf(cart);
+        if (!actual.matches(cart)) {
+            log.warn("Cart {} totals drifted (subtotal {} -> {}), repaired",
+                    cart.getId(), cart.getSubtotal(), Money.toDecimal(actual.subtotal()));
+            cart.setTotals(actual.subtotal(), actual.quantity(), actual.cooking());
+        }
+    }
+
+    /** То же, что verifyTotals, но без исправления — для котировки в read-only транзакции. */
+    public boolean totalsMatchItems(Cart cart) {
+        return totalsOf(cart).matches(cart);
+    }
+
+    /** Итоги по текущим ценам каталога; вариации, которой в каталоге уже нет, — по самой сущности. */
+    private Totals totalsOf(Cart cart) {
+        long subtotal = 0;
+        int quantity = 0;
+        long cooking = 0;
+        for (CartItem item : cart.getItems()) {
+            MenuVariation v = item.getVariation();
+            long price = catalog.priceCents(v.getId());
+            int minutes = catalog.cookingMinutes(v.getId());
+            if (price < 0) {
+                price = v.getPriceCents();
+                minutes = v.getCookingMinutes();
+            }
+            subtotal = Money.plus(subtotal, Money.times(price, item.getQuantity()));
+            quantity += item.getQuantity();
+            cooking += (long) minutes * item.getQuantity();
+        }
+        return new Totals(subtotal, quantity, cooking);
     }
 
-    // Подсчитать текущую сумму корзины
-    public BigDecimal subtotal(Cart cart) {
-        return cart.getItems().stream()
-                .map(i -> i.getVariation().getPrice().multiply(BigDecimal.valueOf(i.getQuantity())))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    private record Totals(long subtotal, int quantity, long cooking) {
+        boolean matches(Cart cart) {
+            return subtotal == cart.getSubtotalCents() && quantity == cart.getTotalQuantity()
+                    && cooking == cart.getCookingMinutesSum();
+        }
     }
 
+    /** Правки по id позиции идут мимо памяти: сначала синхронно дописываем корзину владельца. */
+    private void flushOwnerOf(Long itemId) {
+        if (memoryCarts.enabled()) {
+            items.findUserIdById(itemId).ifPresent(memoryCarts::flushAndEvict);
+        }
+    }
 
-    public int etaMinutes(Cart cart) {
-        int totalQty = cart.getItems().stream().mapToInt(CartItem::getQuantity).sum();
-        if (totalQty == 0) return 0;
-        int weightedCooking = cart.getItems().stream()
-                .mapToInt(i -> i.getVariation().getCookingMinutes() * i.getQuantity())
-                .sum() / totalQty;
-        int courierLoad = 10;
-        return weightedCooking + courierLoad;
+    /** Удаляет строку и из коллекции корзины, если она загружена, — иначе orphanRemoval/cascade вернули бы её обратно. */
+    private Cart deleteLine(CartItem it) {
+        Cart c = it.getCart();
+        c.applyLine(it.getVariation(), -it.getQuantity());
+        if (Hibernate.isInitialized(c.getItems())) {
+            c.getItems().remove(it);
+        }
+        items.delete(it);
+        if (c.getTotalQuantity() == 0) c.setRestaurant(null);
+        return c;
     }
 }
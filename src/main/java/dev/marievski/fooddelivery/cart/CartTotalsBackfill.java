@@ -0,0 +1,32 @@
+package dev.marievski.fooddelivery.cart;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * При старте заполняет накопительные итоги корзин, собранных до их появления.
+ */
+@Component
+public class CartTotalsBackfill {
+
+    private static final Logger log = LoggerFactory.getLogger(CartTotalsBackfill.class);
+
+    private final CartRepository carts;
+
+    public CartTotalsBackfill(CartRepository carts) {
+        this.carts = carts;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfill() {
+        int updated = carts.backfillTotals();
+        if (updated > 0) {
+            log.info("Backfilled totals for {} carts", updated);
+        }
+    }
+}
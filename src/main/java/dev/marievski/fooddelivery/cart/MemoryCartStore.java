@@ -0,0 +1,483 @@
+package dev.marievski.fooddelivery.cart;
+
+import dev.marievski.fooddelivery.cart.dto.CartDto;
+import dev.marievski.fooddelivery.cart.dto.CartItemDto;
+import dev.marievski.fooddelivery.common.ApiConflictException;
+import dev.marievski.fooddelivery.common.BoundedCache;
+import dev.marievski.fooddelivery.common.Money;
+import dev.marievski.fooddelivery.restaurant.MenuCatalog;
+import dev.marievski.fooddelivery.user.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Активные корзины в памяти с отложенной записью в carts/cart_items (app.carts.storage=memory).
+ * <p>
+ * Добавления и очистка меняют только объект в памяти; фоновый сброс раз в app.carts.memory.flush-interval
+ * пишет изменившиеся корзины пачками — десяток добавлений между сбросами превращается в одну запись.
+ * Корзина живёт в памяти не дольше app.carts.memory.ttl от загрузки (и вытесняется по app.carts.memory.max-carts):
+ * при вытеснении она синхронно дописывается в БД, следующий запрос загрузит её заново — после этой записи.
+ * Оформление заказа и правки по id позиции сначала синхронно дописывают и выгружают корзину пользователя.
+ * <p>
+ * Запись — отдельной транзакцией (REQUIRES_NEW). Несброшенные изменения живут только в памяти узла:
+ * при падении процесса (не штатной остановке) они теряются; режим рассчитан на один инстанс
+ * или на sticky-маршрутизацию пользователя.
+ */
+@Component
+public class MemoryCartStore {
+
+    private static final Logger log = LoggerFactory.getLogger(MemoryCartStore.class);
+
+    private static final String UPDATE_CART = """
+            UPDATE carts SET restaurant_id = ?, subtotal = ?, total_quantity = ?, cooking_minutes_sum = ?,
+                updated_at = CURRENT_TIMESTAMP, revision = revision + 1
+            WHERE id = ? AND active = true""";
+
+    private final boolean enabled;
+    private final CartRepository carts;
+    private final UserRepository users;
+    private final CartLineUpsert lineUpsert;
+    private final MenuCatalog catalog;
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private final int flushBatch;
+    private final BoundedCache<Long, MemoryCart> cache;
+    private final ConcurrentHashMap<Long, CompletableFuture<MemoryCart>> loading = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, MemoryCart> evicting = new ConcurrentHashMap<>(); // ушли из кэша, запись ещё идёт
+    private final Counter mutations;
+    private final Counter writes;
+
+    public MemoryCartStore(CartRepository carts,
+                           UserRepository users,
+                           CartLineUpsert lineUpsert,
+                           MenuCatalog catalog,
+                           JdbcTemplate jdbc,
+                           PlatformTransactionManager txManager,
+                           MeterRegistry meterRegistry,
+                           @Value("${app.carts.storage:db}") String storage,
+                           @Value("${app.carts.memory.max-carts:100000}") int maxCarts,
+                           @Value("${app.carts.memory.ttl:PT10M}") Duration ttl,
+                           @Value("${app.carts.memory.flush-batch:200}") int flushBatch) {
+        this.enabled = "memory".equalsIgnoreCase(storage);
+        this.carts = carts;
+        this.users = users;
+        this.lineUpsert = lineUpsert;
+        this.catalog = catalog;
+        this.jdbc = jdbc;
+        this.tx = new TransactionTemplate(txManager);
+        this.tx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.flushBatch = flushBatch;
+        this.cache = new BoundedCache<Long, MemoryCart>(maxCarts, Long.MAX_VALUE, null, ttl)
+                .onRemoval(evicting::put)
+                .onEviction((userId, cart) -> flushEvicted(cart))
+                .bindMetrics(meterRegistry, "carts.memory");
+        this.mutations = Counter.builder("carts.memory.mutations").register(meterRegistry);
+        this.writes = Counter.builder("carts.memory.writes").register(meterRegistry);
+    }
+
+    public boolean enabled() {
+        return enabled;
+    }
+
+    /** Добавить проверенную пачку (см. CartService.resolve) в корзину в памяти. */
+    public CartDto add(Long userId, CartService.ResolvedLines batch) {
+        while (true) {
+            MemoryCart cart = entry(userId);
+            synchronized (cart) {
+                if (cart.detached) continue; // только что выгружена — берём свежую
+                if (!batch.isEmpty()) {
+                    Long restaurantId = batch.restaurantId();
+                    if (cart.restaurantId != null && !cart.restaurantId.equals(restaurantId)) {
+                        // п.51 — корзина только одного ресторана
+                        throw new ApiConflictException("CART_RESTAURANT_MISMATCH",
+                                "Корзина может содержать блюда только из одного ресторана");
+                    }
+                    cart.restaurantId = restaurantId;
+                    for (Map.Entry<Long, Integer> e : batch.quantities().entrySet()) {
+                        long id = e.getKey();
+                        cart.add(id, catalog.label(id), catalog.priceCents(id), catalog.cookingMinutes(id), e.getValue());
+                    }
+                    cart.changed();
+                    mutations.increment();
+                }
+                return cart.toDto(userId);
+            }
+        }
+    }
+
+    public void clear(Long userId) {
+        while (true) {
+            MemoryCart cart = entry(userId);
+            synchronized (cart) {
+                if (cart.detached) continue;
+                cart.lines.clear();
+                cart.restaurantId = null;
+                cart.subtotalCents = 0;
+                cart.totalQuantity = 0;
+                cart.cookingMinutesSum = 0;
+                cart.cleared = true;
+                cart.changed();
+                mutations.increment();
+                return;
+            }
+        }
+    }
+
+    /** Корзина, если она сейчас в памяти; иначе — читать из БД. */
+    public Optional<CartDto> find(Long userId) {
+        if (!enabled) return Optional.empty();
+        MemoryCart cart = cache.get(userId);
+        if (cart == null) return Optional.empty();
+        synchronized (cart) {
+            return cart.detached ? Optional.empty() : Optional.of(cart.toDto(userId));
+        }
+    }
+
+    /** Синхронно дописать корзину пользователя в БД, оставив её в памяти (котировка читает из БД). */
+    public void flush(Long userId) {
+        if (!enabled) return;
+        MemoryCart cart = cache.get(userId);
+        if (cart != null) flush(List.of(cart), false, true);
+    }
+
+    /** Синхронно дописать и выгрузить корзину пользователя: дальше с ней работают через БД. */
+    public void flushAndEvict(Long userId) {
+        if (!enabled) return;
+        MemoryCart cart = cache.invalidate(userId);
+        if (cart == null) return;
+        try {
+            flush(List.of(cart), true, true);
+        } finally {
+            evicting.remove(userId, cart);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.carts.memory.flush-interval:PT2S}")
+    public void flushDirty() {
+        if (!enabled) return;
+        List<MemoryCart> batch = new ArrayList<>(flushBatch);
+        for (MemoryCart cart : cache.values()) {
+            if (!cart.dirty) continue;
+            batch.add(cart);
+            if (batch.size() == flushBatch) {
+                flushQuietly(batch);
+                batch = new ArrayList<>(flushBatch);
+            }
+        }
+        if (!batch.isEmpty()) flushQuietly(batch);
+    }
+
+    @PreDestroy
+    public void flushAll() {
+        if (!enabled) return;
+        for (MemoryCart cart : cache.values()) {
+            try {
+                flush(List.of(cart), true, true);
+            } catch (RuntimeException e) {
+                log.error("Cart of user {} lost on shutdown", cart.userId, e);
+            }
+        }
+    }
+
+    private void flushEvicted(MemoryCart cart) {
+        try {
+            flush(List.of(cart), true, true);
+        } catch (RuntimeException e) {
+            log.error("Evicted cart of user {} could not be written, changes lost", cart.userId, e);
+        } finally {
+            evicting.remove(cart.userId, cart);
+        }
+    }
+
+    private void flushQuietly(List<MemoryCart> batch) {
+        try {
+            flush(batch, false, false);
+        } catch (RuntimeException e) {
+            log.warn("Write-behind of {} carts failed, will retry", batch.size(), e); // остались dirty
+        }
+    }
+
+    private MemoryCart entry(Long userId) {
+        MemoryCart cart = cache.get(userId);
+        if (cart != null) return cart;
+        // одна загрузка на пользователя: два параллельных промаха иначе загрузили бы две копии
+        // и одна из них потеряла бы изменения; промахи по разным пользователям друг друга не ждут
+        CompletableFuture<MemoryCart> mine = new CompletableFuture<>();
+        CompletableFuture<MemoryCart> inFlight = loading.putIfAbsent(userId, mine);
+        if (inFlight != null) {
+            try {
+                return inFlight.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) throw cause;
+                throw e;
+            }
+        }
+        try {
+            cart = cache.get(userId); // могла появиться, пока предыдущая загрузка снималась с учёта
+            if (cart == null) {
+                cart = load(userId);
+                cache.put(userId, cart);
+            }
+            mine.complete(cart);
+            return cart;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(userId, mine);
+        }
+    }
+
+    private MemoryCart load(Long userId) {
+        // вытесненная копия могла ещё не дописаться: без этого прочитали бы старые строки, и следующий сброс
+        // новой копии затёр бы записанное абсолютными итогами; flush дождётся чужой записи или допишет сам
+        MemoryCart previous = evicting.get(userId);
+        if (previous != null) {
+            flush(List.of(previous), true, true);
+            evicting.remove(userId, previous);
+        }
+        MemoryCart cart = new MemoryCart(userId);
+        List<CartLineRow> rows = carts.findActiveRows(userId);
+        if (rows.isEmpty() && !users.existsById(userId)) {
+            throw new IllegalArgumentException("Пользователь не найден");
+        }
+        for (CartLineRow row : rows) {
+            cart.cartId = row.cartId();
+            cart.restaurantId = row.restaurantId();
+            cart.subtotalCents = row.subtotalCents();
+            cart.totalQuantity = row.totalQuantity();
+            cart.cookingMinutesSum = row.cookingMinutesSum();
+            if (row.itemId() != null) {
+                cart.lines.put(row.variationId(),
+                        new Line(row.itemId(), row.variationId(), row.label(), row.priceCents(), row.quantity()));
+            }
+        }
+        return cart;
+    }
+
+    /**
+     * Записать изменившиеся корзины одной транзакцией. Пока корзина пишется, её flushLock занят —
+     * две записи одной корзины не обгонят друг друга. wait=false (фон) пропускает корзины, которые пишет кто-то ещё.
+     */
+    private void flush(List<MemoryCart> batch, boolean detach, boolean wait) {
+        List<MemoryCart> locked = new ArrayList<>(batch.size());
+        try {
+            List<Snapshot> snapshots = new ArrayList<>(batch.size());
+            for (MemoryCart cart : batch) {
+                if (wait) cart.flushLock.lock();
+                else if (!cart.flushLock.tryLock()) continue;
+                locked.add(cart);
+                synchronized (cart) {
+                    if (detach) cart.detached = true;
+                    if (cart.dirty) snapshots.add(cart.snapshot());
+                }
+            }
+            if (snapshots.isEmpty()) return;
+
+            tx.executeWithoutResult(status -> write(snapshots));
+            writes.increment(snapshots.size());
+
+            for (Snapshot s : snapshots) {
+                MemoryCart cart = s.cart;
+                synchronized (cart) {
+                    cart.cartId = s.cartId;
+                    if (s.gone) {
+                        // корзину в БД уже оформили или удалили — её состояние в памяти больше не нужно
+                        log.warn("Cart of user {} is no longer active, dropping in-memory changes", cart.userId);
+                        if (!cart.detached) cache.invalidate(cart.userId);
+                        evicting.remove(cart.userId, cart); // писать больше нечего
+                        cart.detached = true;
+                    } else {
+                        if (cart.version == s.version) {
+                            cart.dirty = false;
+                            cart.cleared = false;
+                        }
+                        if (!cart.cleared) cart.assignIds(s.itemIds); // после новой очистки строки в БД ещё старые
+                    }
+                }
+            }
+        } finally {
+            for (MemoryCart cart : locked) cart.flushLock.unlock();
+        }
+    }
+
+    private void write(List<Snapshot> snapshots) {
+        for (Snapshot s : snapshots) {
+            if (s.cartId == null) {
+                Cart created = new Cart();
+                created.setUser(users.getReferenceById(s.cart.userId));
+                s.cartId = carts.save(created).getId();
+            }
+        }
+        List<Object[]> cartArgs = new ArrayList<>(snapshots.size());
+        for (Snapshot s : snapshots) {
+            cartArgs.add(new Object[]{s.restaurantId, Money.toDecimal(s.subtotalCents), s.totalQuantity,
+                    s.cookingMinutesSum, s.cartId});
+        }
+        int[] updated = jdbc.batchUpdate(UPDATE_CART, cartArgs);
+
+        List<Object[]> cleared = new ArrayList<>();
+        List<Object[]> lines = new ArrayList<>();
+        for (int i = 0; i < snapshots.size(); i++) {
+            Snapshot s = snapshots.get(i);
+            if (updated[i] == 0) {
+                s.gone = true;
+                continue;
+            }
+            if (s.cleared) cleared.add(new Object[]{s.cartId});
+            for (Line line : s.lines) lines.add(new Object[]{s.cartId, line.variationId, line.quantity});
+        }
+        if (!cleared.isEmpty()) jdbc.batchUpdate("DELETE FROM cart_items WHERE cart_id = ?", cleared);
+        lineUpsert.setQuantities(lines);
+        readItemIds(snapshots);
+    }
+
+    /** id строк, созданных записью (и пересозданных после очистки), — чтобы GET /cart отдавал items[].id. */
+    private void readItemIds(List<Snapshot> snapshots) {
+        Map<Long, Snapshot> byCart = new HashMap<>();
+        for (Snapshot s : snapshots) {
+            if (!s.gone && (s.cleared || s.lines.stream().anyMatch(l -> l.id == null))) byCart.put(s.cartId, s);
+        }
+        if (byCart.isEmpty()) return;
+        String in = String.join(",", Collections.nCopies(byCart.size(), "?"));
+        jdbc.query("SELECT cart_id, variation_id, id FROM cart_items WHERE cart_id IN (" + in + ")",
+                (RowCallbackHandler) rs -> byCart.get(rs.getLong(1)).itemIds.put(rs.getLong(2), rs.getLong(3)),
+                byCart.keySet().toArray());
+    }
+
+    private static final class Line {
+        Long id; // null — строки ещё нет в БД; проставляется после записи
+        final Long variationId;
+        final String label;
+        final long priceCents;
+        int quantity;
+
+        Line(Long id, Long variationId, String label, long priceCents, int quantity) {
+            this.id = id;
+            this.variationId = variationId;
+            this.label = label;
+            this.priceCents = priceCents;
+            this.quantity = quantity;
+        }
+    }
+
+    /** Поля меняются под монитором самого объекта. */
+    private static final class MemoryCart {
+        final Long userId;
+        final ReentrantLock flushLock = new ReentrantLock();
+        final Map<Long, Line> lines = new LinkedHashMap<>();
+        Long cartId;
+        Long restaurantId;
+        long subtotalCents;
+        int totalQuantity;
+        long cookingMinutesSum;
+        long version;
+        volatile boolean dirty;
+        boolean cleared; // строки в БД надо удалить перед записью текущих
+        boolean detached;
+
+        MemoryCart(Long userId) {
+            this.userId = userId;
+        }
+
+        void add(Long variationId, String label, long priceCents, int cookingMinutes, int quantity) {
+            Line line = lines.computeIfAbsent(variationId, id -> new Line(null, id, label, priceCents, 0));
+            line.quantity = Math.addExact(line.quantity, quantity);
+            subtotalCents = Money.plus(subtotalCents, Money.times(priceCents, quantity));
+            totalQuantity = Math.addExact(totalQuantity, quantity);
+            cookingMinutesSum += (long) cookingMinutes * quantity;
+        }
+
+        void assignIds(Map<Long, Long> itemIds) {
+            for (Line line : lines.values()) {
+                Long id = itemIds.get(line.variationId);
+                if (id != null) line.id = id;
+            }
+        }
+
+        void changed() {
+            version++;
+            dirty = true;
+        }
+
+        Snapshot snapshot() {
+            List<Line> copy = new ArrayList<>(lines.size());
+            for (Line l : lines.values()) copy.add(new Line(l.id, l.variationId, l.label, l.priceCents, l.quantity));
+            return new Snapshot(this, version, cartId, restaurantId, subtotalCents, totalQuantity,
+                    cookingMinutesSum, cleared, copy);
+        }
+
+        CartDto toDto(Long userId) {
+            CartDto dto = new CartDto();
+            dto.setId(cartId);
+            dto.setUserId(userId);
+            dto.setRestaurantId(restaurantId);
+            dto.setSubtotal(Money.toDecimal(subtotalCents));
+            dto.setEtaMinutes(Cart.etaMinutes(cookingMinutesSum, totalQuantity));
+            List<CartItemDto> items = new ArrayList<>(lines.size());
+            for (Line l : lines.values()) {
+                CartItemDto item = new CartItemDto();
+                item.setId(l.id);
+                item.setVariationId(l.variationId);
+                item.setLabel(l.label);
+                item.setPrice(Money.toDecimal(l.priceCents));
+                item.setQuantity(l.quantity);
+                item.setLineTotal(Money.toDecimal(Money.times(l.priceCents, l.quantity)));
+                items.add(item);
+            }
+            dto.setItems(items);
+            return dto;
+        }
+    }
+
+    private static final class Snapshot {
+        final MemoryCart cart;
+        final long version;
+        Long cartId;
+        final Long restaurantId;
+        final long subtotalCents;
+        final int totalQuantity;
+        final long cookingMinutesSum;
+        final boolean cleared;
+        final List<Line> lines;
+        final Map<Long, Long> itemIds = new HashMap<>(); // variationId -> id строки после записи
+        boolean gone;
+
+        Snapshot(MemoryCart cart, long version, Long cartId, Long restaurantId, long subtotalCents,
+                 int totalQuantity, long cookingMinutesSum, boolean cleared, List<Line> lines) {
+            this.cart = cart;
+            this.version = version;
+            this.cartId = cartId;
+            this.restaurantId = restaurantId;
+            this.subtotalCents = subtotalCents;
+            this.totalQuantity = totalQuantity;
+            this.cookingMinutesSum = cookingMinutesSum;
+            this.cleared = cleared;
+            this.lines = lines;
+        }
+    }
+}
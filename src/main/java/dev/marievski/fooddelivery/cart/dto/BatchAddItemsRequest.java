@@ -0,0 +1,36 @@
+package dev.marievski.fooddelivery.cart.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public class BatchAddItemsRequest {
+    @NotNull
+    private Long userId;
+    @NotEmpty
+    @Size(max = 100)
+    @Valid
+    private List<Line> items;
+
+    public static class Line {
+        @NotNull
+        private Long variationId;
+        @NotNull
+        @Min(1)
+        private Integer quantity;
+
+        public Long getVariationId() { return variationId; }
+        public void setVariationId(Long variationId) { this.variationId = variationId; }
+        public Integer getQuantity() { return quantity; }
+        public void setQuantity(Integer quantity) { this.quantity = quantity; }
+    }
+
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+    public List<Line> getItems() { return items; }
+    public void setItems(List<Line> items) { this.items = items; }
+}
@@ -12,6 +12,7 @@ public class CartDto {
     private BigDecimal subtotal;
     private int etaMinutes;
     private List<CartItemDto> items;
+    private String quoteToken; // только для GET /cart?quote=true
 
 
     public Long getId() { return id; }
@@ -26,4 +27,6 @@ public class CartDto {
     public void setEtaMinutes(int etaMinutes) { this.etaMinutes = etaMinutes; }
     public List<CartItemDto> getItems() { return items; }
     public void setItems(List<CartItemDto> items) { this.items = items; }
+    public String getQuoteToken() { return quoteToken; }
+    public void setQuoteToken(String quoteToken) { this.quoteToken = quoteToken; }
 }
\ No newline at end of file
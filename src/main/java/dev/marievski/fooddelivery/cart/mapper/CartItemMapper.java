@@ -2,15 +2,16 @@ package dev.marievski.fooddelivery.cart.mapper;
 
 import dev.marievski.fooddelivery.cart.CartItem;
 import dev.marievski.fooddelivery.cart.dto.CartItemDto;
+import dev.marievski.fooddelivery.common.Money;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 
-@Mapper(componentModel = "spring")
+@Mapper(componentModel = "spring", imports = Money.class)
 public interface CartItemMapper {
 
     @Mapping(target = "variationId", source = "variation.id")
     @Mapping(target = "label", source = "variation.label")
     @Mapping(target = "price", source = "variation.price")
-    @Mapping(target = "lineTotal", expression = "java(cartItem.getVariation().getPrice().multiply(java.math.BigDecimal.valueOf(cartItem.getQuantity())))")
+    @Mapping(target = "lineTotal", expression = "java(Money.toDecimal(Money.times(cartItem.getVariation().getPriceCents(), cartItem.getQuantity())))")
     CartItemDto toDto(CartItem cartItem);
 }
\ No newline at end of file
@@ -0,0 +1,263 @@
+package dev.marievski.fooddelivery.common;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * Небольшой ограниченный in-memory кэш без внешних зависимостей: LRU по числу записей
+ * и (опционально) по суммарному "весу", TTL от момента записи, счётчики для метрик.
+ * Под капотом — LinkedHashMap в access-order под одним локом: для наших объёмов (тысячи записей) этого хватает.
+ * <p>
+ * Слушатель вытеснения вызывается только для вытеснения по размеру/весу/TTL (не для явного invalidate)
+ * и уже вне лока. Слушатель удаления ({@link #onRemoval}) — под локом, при любом удалении записи.
+ */
+public final class BoundedCache<K, V> {
+
+    private final int maxEntries;
+    private final long maxWeight;
+    private final ToIntFunction<V> weigher;
+    private final long ttlNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<K, Entry<V>> map = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder loadNanos = new LongAdder();
+
+    private volatile BiConsumer<K, V> evictionListener = (k, v) -> {};
+    private volatile BiConsumer<K, V> removalListener = (k, v) -> {};
+
+    private record Entry<V>(V value, int weight, long expiresAt) {}
+
+    /**
+     * @param maxEntries максимум записей
+     * @param maxWeight  максимум суммарного веса (Long.MAX_VALUE — без ограничения)
+     * @param weigher    вес записи (null — все по 1)
+     * @param ttl        время жизни от записи (null — бессрочно)
+     */
+    public BoundedCache(int maxEntries, long maxWeight, ToIntFunction<V> weigher, Duration ttl) {
+        if (maxEntries <= 0) throw new IllegalArgumentException("maxEntries must be > 0");
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+        this.weigher = weigher != null ? weigher : v -> 1;
+        this.ttlNanos = ttl != null ? ttl.toNanos() : Long.MAX_VALUE;
+    }
+
+    public static <K, V> BoundedCache<K, V> of(int maxEntries, Duration ttl) {
+        return new BoundedCache<>(maxEntries, Long.MAX_VALUE, null, ttl);
+    }
+
+    public BoundedCache<K, V> onEviction(BiConsumer<K, V> listener) {
+        this.evictionListener = listener;
+        return this;
+    }
+
+    /**
+     * Вызывается под локом кэша в момент удаления записи (вытеснение, TTL, invalidate; замена через put — нет),
+     * раньше слушателя вытеснения: запись ещё нигде не видна как отсутствующая. Должен быть быстрым и не трогать кэш.
+     */
+    public BoundedCache<K, V> onRemoval(BiConsumer<K, V> listener) {
+        this.removalListener = listener;
+        return this;
+    }
+
+    /** Значение или null (промах или истёк TTL — тогда запись сразу вытесняется). */
+    public V get(K key) {
+        long now = System.nanoTime();
+        Entry<V> expired;
+        lock.lock();
+        try {
+            Entry<V> e = map.get(key);
+            if (e != null && now - e.expiresAt() < 0) {
+                hits.increment();
+                return e.value();
+            }
+            misses.increment();
+            expired = e != null ? map.remove(key) : null;
+            if (expired != null) {
+                weight -= expired.weight();
+                evictions.increment();
+                removalListener.accept(key, expired.value());
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (expired != null) evictionListener.accept(key, expired.value());
+        return null;
+    }
+
+    /**
+     * Read-through: при промахе вызывает loader (вне лока) и кладёт результат.
+     * Null от loader не кэшируется. Параллельные промахи по одному ключу могут загрузить дважды — это нормально.
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        V cached = get(key);
+        if (cached != null) return cached;
+
+        long start = System.nanoTime();
+        V loaded = loader.apply(key);
+        loadNanos.add(System.nanoTime() - start);
+        loads.increment();
+        if (loaded != null) put(key, loaded);
+        return loaded;
+    }
+
+    public void put(K key, V value) {
+        int w = weigher.applyAsInt(value);
+        long now = System.nanoTime();
+        long expiresAt = ttlNanos == Long.MAX_VALUE ? now + Long.MAX_VALUE / 2 : now + ttlNanos;
+        List<Map.Entry<K, V>> evicted;
+        lock.lock();
+        try {
+            Entry<V> old = map.put(key, new Entry<>(value, w, expiresAt));
+            if (old != null) weight -= old.weight();
+            weight += w;
+            evicted = evictIfNeeded(now, false);
+        } finally {
+            lock.unlock();
+        }
+        notifyEvicted(evicted);
+    }
+
+    public V invalidate(K key) {
+        lock.lock();
+        try {
+            Entry<V> old = map.remove(key);
+            if (old == null) return null;
+            weight -= old.weight();
+            removalListener.accept(key, old.value());
+            return old.value();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidateAll() {
+        lock.lock();
+        try {
+            map.forEach((k, e) -> removalListener.accept(k, e.value()));
+            map.clear();
+            weight = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Пройти весь кэш и убрать истёкшие записи (иначе они уходят лениво — при чтении или по LRU). */
+    public void cleanUp() {
+        List<Map.Entry<K, V>> evicted;
+        lock.lock();
+        try {
+            evicted = evictIfNeeded(System.nanoTime(), true);
+        } finally {
+            lock.unlock();
+        }
+        notifyEvicted(evicted);
+    }
+
+    /** Снимок значений (для обхода владельцем кэша, например для фоновой выгрузки). */
+    public List<V> values() {
+        lock.lock();
+        try {
+            List<V> out = new ArrayList<>(map.size());
+            for (Entry<V> e : map.values()) out.add(e.value());
+            return out;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private List<Map.Entry<K, V>> evictIfNeeded(long now, boolean fullScan) {
+        List<Map.Entry<K, V>> evicted = null;
+        Iterator<Map.Entry<K, Entry<V>>> it = map.entrySet().iterator();
+        // с самых давно использованных: выкидываем, пока не влезем в лимиты (и истёкшие по пути);
+        // полный проход — только из cleanUp, чтобы put оставался дешёвым
+        while (it.hasNext()) {
+            Map.Entry<K, Entry<V>> eldest = it.next();
+            boolean overflow = map.size() > maxEntries || weight > maxWeight;
+            boolean expired = now - eldest.getValue().expiresAt() >= 0;
+            if (!overflow && !expired) {
+                if (fullScan) continue;
+                break;
+            }
+            it.remove();
+            weight -= eldest.getValue().weight();
+            evictions.increment();
+            removalListener.accept(eldest.getKey(), eldest.getValue().value());
+            if (evicted == null) evicted = new ArrayList<>();
+            evicted.add(Map.entry(eldest.getKey(), eldest.getValue().value()));
+        }
+        return evicted == null ? List.of() : evicted;
+    }
+
+    private void notifyEvicted(List<Map.Entry<K, V>> evicted) {
+        for (Map.Entry<K, V> e : evicted) {
+            evictionListener.accept(e.getKey(), e.getValue());
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return map.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long weight() {
+        lock.lock();
+        try {
+            return weight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long hits() { return hits.sum(); }
+    public long misses() { return misses.sum(); }
+    public long evictions() { return evictions.sum(); }
+    public long loads() { return loads.sum(); }
+    public long totalLoadNanos() { return loadNanos.sum(); }
+
+    /**
+     * Регистрирует метрики в терминах Micrometer: cache.gets{result=hit|miss}, cache.evictions,
+     * cache.size, cache.weight, cache.loads, cache.load.time — все с тегом cache=name.
+     */
+    public BoundedCache<K, V> bindMetrics(MeterRegistry registry, String name) {
+        FunctionCounter.builder("cache.gets", this, BoundedCache::hits)
+                .tag("cache", name).tag("result", "hit").register(registry);
+        FunctionCounter.builder("cache.gets", this, BoundedCache::misses)
+                .tag("cache", name).tag("result", "miss").register(registry);
+        FunctionCounter.builder("cache.evictions", this, BoundedCache::evictions)
+                .tag("cache", name).register(registry);
+        FunctionCounter.builder("cache.loads", this, BoundedCache::loads)
+                .tag("cache", name).register(registry);
+        TimeGauge.builder("cache.load.time", this, TimeUnit.NANOSECONDS, BoundedCache::totalLoadNanos)
+                .tag("cache", name).register(registry);
+        Gauge.builder("cache.size", this, BoundedCache::size)
+                .tag("cache", name).register(registry);
+        Gauge.builder("cache.weight", this, BoundedCache::weight)
+                .tag("cache", name).register(registry);
+        return this;
+    }
+}
@@ -0,0 +1,49 @@
+package dev.marievski.fooddelivery.common;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Непрозрачный курсор для keyset-пагинации.
+ * Внутри — значения ключа последней строки страницы через '|', снаружи — base64url без паддинга.
+ * Клиент не должен разбирать курсор, он только возвращает его в следующем запросе.
+ */
+public final class CursorCodec {
+
+    private static final String SEPARATOR = "|";
+
+    private CursorCodec() {}
+
+    public static String encode(Object... parts) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < parts.length; i++) {
+            if (i > 0) sb.append(SEPARATOR);
+            sb.append(parts[i]);
+        }
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** Раскодировать курсор, ожидая ровно {@code expectedParts} частей. */
+    public static String[] decode(String cursor, int expectedParts) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\" + SEPARATOR, -1);
+            if (parts.length != expectedParts) {
+                throw new IllegalArgumentException("unexpected parts count");
+            }
+            return parts;
+        } catch (IllegalArgumentException e) {
+            throw new ApiBadRequestException("BAD_CURSOR", "Invalid cursor");
+        }
+    }
+
+    public static long decodeLong(String cursor) {
+        String part = decode(cursor, 1)[0];
+        try {
+            return Long.parseLong(part);
+        } catch (NumberFormatException e) {
+            throw new ApiBadRequestException("BAD_CURSOR", "Invalid cursor");
+        }
+    }
+}
@@ -4,6 +4,7 @@ import dev.marievski.fooddelivery.common.exception.NotFoundException;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -60,6 +61,14 @@ public class GlobalExceptionHandler {
         return json(HttpStatus.BAD_REQUEST, ex.getCode(), ex.getMessage(), req.getRequestURI());
     }
 
+    // Параллельная запись той же строки (@Version) — это конфликт, а не ошибка сервера
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ApiError> handleOptimisticLock(OptimisticLockingFailureException ex,
+                                                         HttpServletRequest req) {
+        return json(HttpStatus.CONFLICT, "CONCURRENT_MODIFICATION",
+                "Resource was modified concurrently, retry the request", req.getRequestURI());
+    }
+
     // Общий обработчик для всех остальных исключений
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ApiError> handleGenericException(Exception ex,
@@ -0,0 +1,70 @@
+package dev.marievski.fooddelivery.common;
+
+/**
+ * Открытая адресация long → int без упаковки: ключи и значения в двух массивах, линейное пробирование.
+ * Ключ 0 зарезервирован под пустую ячейку (id из БД начинаются с 1). Удаления нет — владельцы помечают
+ * записи флагом. Не потокобезопасна: синхронизирует владелец.
+ */
+public final class LongIntHashMap {
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+    private final int missing;
+
+    /** @param missing значение, которое get возвращает для отсутствующего ключа */
+    public LongIntHashMap(int expectedSize, int missing) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+        this.keys = new long[capacity];
+        this.values = new int[capacity];
+        this.missing = missing;
+    }
+
+    public int get(long key) {
+        long[] k = keys;
+        int mask = k.length - 1;
+        for (int i = index(key, mask); ; i = (i + 1) & mask) {
+            long cur = k[i];
+            if (cur == key) return values[i];
+            if (cur == 0) return missing;
+        }
+    }
+
+    public void put(long key, int value) {
+        if (key == 0) throw new IllegalArgumentException("key 0 is reserved");
+        if ((size + 1) * 2 > keys.length) grow();
+        int mask = keys.length - 1;
+        for (int i = index(key, mask); ; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                values[i] = value;
+                return;
+            }
+            if (keys[i] == 0) {
+                keys[i] = key;
+                values[i] = value;
+                size++;
+                return;
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new int[oldValues.length * 2];
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) put(oldKeys[i], oldValues[i]);
+        }
+    }
+
+    private static int index(long key, int mask) {
+        long h = key * 0x9E3779B97F4A7C15L; // перемешиваем последовательные id
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+}
@@ -0,0 +1,38 @@
+package dev.marievski.fooddelivery.common;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Деньги в копейках (long, 2 знака после запятой) — арифметика на горячем пути без аллокаций BigDecimal.
+ * BigDecimal остаётся только на границах: колонки numeric(12,2) (через {@link MoneyConverter}) и DTO.
+ * Переполнение не маскируется — Math.*Exact бросают ArithmeticException.
+ */
+public final class Money {
+
+    public static final int SCALE = 2;
+
+    private Money() {}
+
+    /** Точный перевод в копейки; больше двух знаков после запятой — ошибка, а не округление. */
+    public static long ofDecimal(BigDecimal amount) {
+        if (amount == null) return 0L;
+        try {
+            return amount.setScale(SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Amount must have at most " + SCALE + " fraction digits and fit into long: " + amount);
+        }
+    }
+
+    public static BigDecimal toDecimal(long cents) {
+        return BigDecimal.valueOf(cents, SCALE);
+    }
+
+    public static long times(long cents, int quantity) {
+        return Math.multiplyExact(cents, (long) quantity);
+    }
+
+    public static long plus(long a, long b) {
+        return Math.addExact(a, b);
+    }
+}
@@ -3,18 +3,28 @@ package dev.marievski.fooddelivery.order;
 import dev.marievski.fooddelivery.user.User;
 import dev.marievski.fooddelivery.restaurant.MenuVariation;
 import dev.marievski.fooddelivery.restaurant.Restaurant;
+import dev.marievski.fooddelivery.common.Money;
+import dev.marievski.fooddelivery.common.MoneyConverter;
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 
 @Entity
+// списки читаются из order_summaries (там и индексы под keyset), здесь хватает первичного ключа
 @Table(name = "orders")
 public class Order {
 
-    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // SEQUENCE + pooled optimizer: id известен до INSERT, поэтому Hibernate может батчить вставки
+    // заказа и его позиций (с IDENTITY каждая строка — отдельный round trip)
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+    @SequenceGenerator(name = "orders_seq", sequenceName = "orders_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(optional = false, fetch = FetchType.LAZY)
@@ -25,15 +35,21 @@ public class Order {
     @Column(nullable = false, length = 20)
     private OrderStatus status = OrderStatus.NEW;
 
-    @Column(precision = 12, scale = 2, nullable = false)
-    private BigDecimal total = BigDecimal.ZERO;
+    @Convert(converter = MoneyConverter.class)
+    @Column(name = "total", precision = 12, scale = 2, nullable = false)
+    private long totalCents; // в копейках, см. Money
 
     @Column(name = "eta_minutes", nullable = false)
     private Integer etaMinutes = 0;
 
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true)
+    @BatchSize(size = 50) // при обходе многих заказов позиции грузятся пачками, а не по запросу на заказ
     private List<OrderItem> items = new ArrayList<>();
 
+    @Column(nullable = false)
+    @ColumnDefault("CURRENT_TIMESTAMP") // чтобы ddl-auto смог добавить колонку в уже заполненную таблицу
+    private Instant createdAt = Instant.now();
+
     @Version
     private Long version;
 
@@ -55,8 +71,10 @@ public class Order {
     public OrderStatus getStatus() { return status; }
     public void setStatus(OrderStatus status) { this.status = status; }
 
-    public BigDecimal getTotal() { return total; }
-    public void setTotal(BigDecimal total) { this.total = total; }
+    public BigDecimal getTotal() { return Money.toDecimal(totalCents); }
+    public void setTotal(BigDecimal total) { this.totalCents = Money.ofDecimal(total); }
+    public long getTotalCents() { return totalCents; }
+    public void setTotalCents(long totalCents) { this.totalCents = totalCents; }
 
     public Integer getEtaMinutes() { return etaMinutes; }
     public void setEtaMinutes(Integer etaMinutes) { this.etaMinutes = etaMinutes; }
@@ -64,6 +82,8 @@ public class Order {
     public List<OrderItem> getItems() { return items; }
     public void setItems(List<OrderItem> items) { this.items = items; }
 
+    public Instant getCreatedAt() { return createdAt; }
+
     public Long getVersion() { return version; }
 
     // equals/hashCode по id
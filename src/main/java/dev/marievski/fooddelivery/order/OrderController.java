@@ -1,17 +1,26 @@
 package dev.marievski.fooddelivery.order;
 
+import dev.marievski.fooddelivery.archive.OrderArchiveService;
+import dev.marievski.fooddelivery.order.dto.BulkStatusUpdateRequest;
 import dev.marievski.fooddelivery.order.dto.CreateOrderRequest;
 import dev.marievski.fooddelivery.order.dto.OrderDto;
+import dev.marievski.fooddelivery.order.dto.OrderPageDto;
+import dev.marievski.fooddelivery.order.dto.StatusChangeResultDto;
 import dev.marievski.fooddelivery.order.dto.StatusUpdateRequest;
 import dev.marievski.fooddelivery.order.mapper.OrderMapper;
 import jakarta.validation.Valid;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.net.URI;
+import java.time.Duration;
 import java.util.List;
 
 @RestController
@@ -19,46 +28,84 @@ import java.util.List;
 public class OrderController {
 
     private final OrderService orderService;
+    private final OrderExportService exportService;
+    private final OrderIdempotencyService idempotency;
+    private final OrderTracker tracker;
+    private final OrderArchiveService archive;
     private final OrderRepository orders;
     private final OrderMapper orderMapper;
+    private final Duration exportTimeout;
 
-    public OrderController(OrderService orderService, OrderRepository orders, OrderMapper orderMapper) {
+    public OrderController(OrderService orderService, OrderExportService exportService,
+                           OrderIdempotencyService idempotency, OrderTracker tracker,
+                           OrderArchiveService archive, OrderRepository orders, OrderMapper orderMapper,
+                           @Value("${app.orders.export.timeout:PT1H}") Duration exportTimeout) {
         this.orderService = orderService;
+        this.exportService = exportService;
+        this.idempotency = idempotency;
+        this.tracker = tracker;
+        this.archive = archive;
         this.orders = orders;
         this.orderMapper = orderMapper;
+        this.exportTimeout = exportTimeout;
     }
 
+    /**
+     * С заголовком Idempotency-Key повтор запроса вернёт уже созданный заказ.
+     * Без общей транзакции: createFromCart транзакционный сам, а с ключом транзакциями управляет
+     * OrderIdempotencyService (повтор, проигравший гонку, дочитывает результат в новой).
+     */
     @PostMapping
-    @Transactional
-    public ResponseEntity<OrderDto> create(@Valid @RequestBody CreateOrderRequest req) {
-        Order order = orderService.createFromCart(req.getUserId());
-        OrderDto body = orderMapper.toDto(order);
+    public ResponseEntity<OrderDto> create(@RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+                                           @Valid @RequestBody CreateOrderRequest req) {
+        OrderDto body = idempotencyKey == null
+                ? orderMapper.toDto(orderService.createFromCart(req.getUserId(), req.getQuoteToken()))
+                : idempotency.execute(idempotencyKey, req.getUserId(),
+                        () -> orderMapper.toDto(orderService.createFromCart(req.getUserId(), req.getQuoteToken())));
         return ResponseEntity.ok()
-                .location(URI.create("/orders/" + order.getId()))
+                .location(URI.create("/orders/" + body.getId()))
                 .body(body);
     }
 
+    /** Старые завершённые заказы уже в архиве — тогда отдаём оттуда тем же DTO. */
     @GetMapping("/{id}")
     @Transactional(readOnly = true)
     public OrderDto get(@PathVariable Long id) {
-        Order order = orders.fetchById(id)
-                .orElseGet(() -> orderService.getOrThrow(id));
-        return orderMapper.toDto(order);
+        return orders.fetchById(id)
+                .map(orderMapper::toDto)
+                .or(() -> archive.findOrder(id))
+                .orElseGet(() -> orderMapper.toDto(orderService.getOrThrow(id)));
+    }
+
+    /** Живой статус/ETA заказа (SSE) вместо опроса GET /orders/{id}. */
+    @GetMapping(value = "/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter events(@PathVariable Long id) {
+        return tracker.subscribe(id);
     }
 
     @GetMapping
     @Transactional(readOnly = true)
-    public List<OrderDto> list(@RequestParam(value = "userId", required = false) Long userId,
-                               @RequestParam(value = "status", required = false) OrderStatus status) {
-        if (userId != null) {
-            Page<Order> userOrders = orderService.byUser(userId, Pageable.unpaged());
-            return orderMapper.toDtoList(userOrders.getContent());
-        }
-        if (status != null) {
-            Page<Order> statusOrders = orderService.byStatus(status, Pageable.unpaged());
-            return orderMapper.toDtoList(statusOrders.getContent());
-        }
-        return orderMapper.toDtoList(orders.findAll());
+    public OrderPageDto list(@RequestParam(value = "userId", required = false) Long userId,
+                             @RequestParam(value = "status", required = false) OrderStatus status,
+                             @RequestParam(value = "cursor", required = false) String cursor,
+                             @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        OrderService.OrderSlice slice = orderService.page(userId, status, cursor, limit);
+        return new OrderPageDto(slice.orders(), slice.nextCursor());
+    }
+
+    /** Полная выгрузка для ops/finance: NDJSON, пишется потоково по мере чтения из БД. */
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(value = "status", required = false) OrderStatus status,
+                                                        @RequestParam(value = "userId", required = false) Long userId,
+                                                        @RequestParam(value = "fromId", required = false) Long fromId,
+                                                        @RequestParam(value = "toId", required = false) Long toId,
+                                                        WebRequest request) {
+        // длинный таймаут — только этому запросу, а не всем async-эндпоинтам (SSE и пр.)
+        WebAsyncUtils.getAsyncManager(request).getAsyncWebRequest().setTimeout(exportTimeout.toMillis());
+        StreamingResponseBody body = out -> exportService.export(status, userId, fromId, toId, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
     }
 
     @PatchMapping("/{id}/status")
@@ -70,6 +117,13 @@ public class OrderController {
         return orderMapper.toDto(fresh);
     }
 
+    /** Пакетная смена статуса (диспетчерская): один UPDATE, результат по каждому id. */
+    @PostMapping("/status:batch")
+    @Transactional
+    public List<StatusChangeResultDto> changeStatusBatch(@Valid @RequestBody BulkStatusUpdateRequest req) {
+        return orderService.changeStatusBulk(req.getIds(), req.getStatus());
+    }
+
     @DeleteMapping("/{id}")
     @Transactional
     public ResponseEntity<Void> cancel(@PathVariable Long id) {
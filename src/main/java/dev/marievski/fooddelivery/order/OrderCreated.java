@@ -0,0 +1,9 @@
+package dev.marievski.fooddelivery.order;
+
+import java.time.Instant;
+
+/**
+ * Внутреннее Spring-событие о созданном заказе. Публикуется внутри транзакции —
+ * слушать через @TransactionalEventListener(AFTER_COMMIT).
+ */
+public record OrderCreated(Long orderId, Long restaurantId, long totalCents, int etaMinutes, Instant createdAt) {}
@@ -0,0 +1,66 @@
+package dev.marievski.fooddelivery.order;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import dev.marievski.fooddelivery.order.mapper.OrderMapper;
+import jakarta.persistence.EntityManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Выгрузка заказов в NDJSON (один заказ — одна строка JSON).
+ * Память не зависит от объёма: заказы читаются курсором, пишутся сразу в поток,
+ * а persistence context периодически очищается.
+ */
+@Service
+public class OrderExportService {
+
+    private static final int CLEAR_EVERY = 250;
+
+    private final OrderRepository orders;
+    private final OrderMapper orderMapper;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+
+    public OrderExportService(OrderRepository orders, OrderMapper orderMapper,
+                              EntityManager entityManager, ObjectMapper objectMapper) {
+        this.orders = orders;
+        this.orderMapper = orderMapper;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+    }
+
+    /** Пишет заказы в {@code out}, возвращает их количество. Поток не закрывает. */
+    @Transactional(readOnly = true)
+    public long export(OrderStatus status, Long userId, Long fromId, Long toId, OutputStream out) throws IOException {
+        long from = fromId != null ? fromId : 0L;
+        long to = toId != null ? toId : Long.MAX_VALUE;
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        long written = 0;
+        try (Stream<Order> stream = orders.streamForExport(status, userId, from, to);
+             JsonGenerator gen = objectMapper.getFactory().createGenerator(out)) {
+            gen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            gen.setRootValueSeparator(null); // разделитель пишем сами — перевод строки
+
+            Iterator<Order> it = stream.iterator();
+            while (it.hasNext()) {
+                writer.writeValue(gen, orderMapper.toDto(it.next()));
+                gen.writeRaw('\n');
+                if (++written % CLEAR_EVERY == 0) {
+                    gen.flush();
+                    entityManager.clear();
+                }
+            }
+            gen.flush();
+        }
+        return written;
+    }
+}
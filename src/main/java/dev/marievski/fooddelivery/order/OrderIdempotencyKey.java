@@ -0,0 +1,59 @@
+package dev.marievski.fooddelivery.order;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.Instant;
+
+/**
+ * Idempotency-Key для POST /orders: какой заказ создан по ключу.
+ * Строка вставляется в той же транзакции, что и заказ, поэтому закоммиченный ключ всегда с orderId;
+ * параллельный повтор упирается в PK и ждёт, пока первая транзакция не закончится.
+ */
+@Entity
+@Table(name = "order_idempotency_keys", indexes = {
+        @Index(name = "idx_order_idempotency_created_at", columnList = "created_at")
+})
+public class OrderIdempotencyKey implements Persistable<String> {
+
+    @Id
+    @Column(name = "idem_key", length = 100)
+    private String key;
+
+    @Column(nullable = false)
+    private Long userId;
+
+    @Column
+    private Long orderId;
+
+    @Column(nullable = false)
+    private Instant createdAt = Instant.now();
+
+    @Transient
+    private boolean isNew = true;
+
+    protected OrderIdempotencyKey() {}
+
+    public OrderIdempotencyKey(String key, Long userId) {
+        this.key = key;
+        this.userId = userId;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() { this.isNew = false; }
+
+    @Override
+    public String getId() { return key; }
+
+    @Override
+    public boolean isNew() { return isNew; }
+
+    public String getKey() { return key; }
+    public Long getUserId() { return userId; }
+
+    public Long getOrderId() { return orderId; }
+    public void setOrderId(Long orderId) { this.orderId = orderId; }
+
+    public Instant getCreatedAt() { return createdAt; }
+}
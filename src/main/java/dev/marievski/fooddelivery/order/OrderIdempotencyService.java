@@ -0,0 +1,149 @@
+package dev.marievski.fooddelivery.order;
+
+import dev.marievski.fooddelivery.archive.OrderArchiveService;
+import dev.marievski.fooddelivery.common.ApiBadRequestException;
+import dev.marievski.fooddelivery.common.ApiConflictException;
+import dev.marievski.fooddelivery.common.BoundedCache;
+import dev.marievski.fooddelivery.order.dto.OrderDto;
+import dev.marievski.fooddelivery.order.mapper.OrderMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.Supplier;
+
+/**
+ * Дедупликация повторов POST /orders по заголовку Idempotency-Key.
+ * Горячий слой — ограниченный in-memory кэш готовых OrderDto с TTL, надёжный — таблица order_idempotency_keys.
+ * Повтор отдаёт уже созданный заказ и не трогает корзину.
+ */
+@Service
+public class OrderIdempotencyService {
+
+    private static final int MAX_KEY_LENGTH = 100;
+
+    private final OrderIdempotencyKeyRepository keys;
+    private final OrderRepository orders;
+    private final OrderMapper orderMapper;
+    private final OrderArchiveService archive;
+    private final Duration retention;
+    private final TransactionTemplate tx;
+    private final TransactionTemplate readTx;
+    private final BoundedCache<String, CachedResponse> cache;
+
+    private record CachedResponse(Long userId, OrderDto body) {}
+
+    public OrderIdempotencyService(OrderIdempotencyKeyRepository keys,
+                                   OrderRepository orders,
+                                   OrderMapper orderMapper,
+                                   OrderArchiveService archive,
+                                   MeterRegistry meterRegistry,
+                                   PlatformTransactionManager txManager,
+                                   @Value("${app.orders.idempotency.cache-size:10000}") int cacheSize,
+                                   @Value("${app.orders.idempotency.cache-ttl:PT1H}") Duration cacheTtl,
+                                   @Value("${app.orders.idempotency.retention:P1D}") Duration retention) {
+        this.keys = keys;
+        this.orders = orders;
+        this.orderMapper = orderMapper;
+        this.archive = archive;
+        this.retention = retention;
+        this.tx = new TransactionTemplate(txManager);
+        this.readTx = new TransactionTemplate(txManager);
+        this.readTx.setReadOnly(true);
+        this.cache = BoundedCache.<String, CachedResponse>of(cacheSize, cacheTtl)
+                .bindMetrics(meterRegistry, "orders.idempotency");
+    }
+
+    /**
+     * Выполнить создание заказа не более одного раза на ключ. Транзакциями управляет сам (вызывать вне транзакции):
+     * ключ и заказ пишутся в одной, а проигравший гонку повтор дочитывает результат победителя в новой —
+     * его собственная после нарушения PK уже откатана.
+     */
+    public OrderDto execute(String key, Long userId, Supplier<OrderDto> create) {
+        validateKey(key);
+
+        CachedResponse cached = cache.get(key);
+        if (cached != null) {
+            return checkOwner(cached.userId(), userId, cached.body());
+        }
+        OrderDto stored = readTx.execute(status -> findStored(key, userId));
+        if (stored != null) return stored;
+
+        try {
+            return tx.execute(status -> {
+                // Занимаем ключ до основной работы: параллельный повтор будет ждать на PK, а не создаст второй заказ
+                OrderIdempotencyKey record = new OrderIdempotencyKey(key, userId);
+                keys.saveAndFlush(record);
+                OrderDto body = create.get();
+                record.setOrderId(body.getId());
+                afterCommit(() -> cache.put(key, new CachedResponse(userId, body)));
+                return body;
+            });
+        } catch (DataIntegrityViolationException e) {
+            // PK занят: победитель уже закоммитил — отдаём его заказ; ещё работает — просим повторить позже
+            stored = readTx.execute(status -> findStored(key, userId));
+            if (stored != null) return stored;
+            throw new ApiConflictException("IDEMPOTENCY_KEY_IN_PROGRESS",
+                    "Request with this Idempotency-Key is already being processed, retry later");
+        }
+    }
+
+    /** Ключи старше retention больше не защищают от повторов — чистим таблицу. */
+    @Scheduled(fixedDelayString = "${app.orders.idempotency.purge-interval:PT1H}")
+    @Transactional
+    public void purgeExpired() {
+        keys.deleteCreatedBefore(Instant.now().minus(retention));
+        cache.cleanUp();
+    }
+
+    /** Заказ, уже созданный по ключу (горячие таблицы, затем архив); null — ключ ещё не закоммичен. */
+    private OrderDto findStored(String key, Long userId) {
+        OrderIdempotencyKey existing = keys.findById(key).orElse(null);
+        if (existing == null || existing.getOrderId() == null) return null;
+        checkOwner(existing.getUserId(), userId, null);
+        OrderDto body = orders.fetchById(existing.getOrderId())
+                .map(orderMapper::toDto)
+                .or(() -> archive.findOrder(existing.getOrderId()))
+                .orElseThrow(() -> new ApiConflictException("IDEMPOTENCY_ORDER_GONE",
+                        "Order created with this Idempotency-Key no longer exists"));
+        cache.put(key, new CachedResponse(userId, body));
+        return body;
+    }
+
+    private void validateKey(String key) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new ApiBadRequestException("BAD_IDEMPOTENCY_KEY",
+                    "Idempotency-Key must be 1.." + MAX_KEY_LENGTH + " characters");
+        }
+    }
+
+    private OrderDto checkOwner(Long ownerId, Long userId, OrderDto body) {
+        if (!ownerId.equals(userId)) {
+            throw new ApiConflictException("IDEMPOTENCY_KEY_REUSED",
+                    "Idempotency-Key was already used for another request");
+        }
+        return body;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -2,6 +2,8 @@ package dev.marievski.fooddelivery.order;
 
 import dev.marievski.fooddelivery.restaurant.MenuVariation;
 import dev.marievski.fooddelivery.restaurant.Restaurant;
+import dev.marievski.fooddelivery.common.Money;
+import dev.marievski.fooddelivery.common.MoneyConverter;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Min;
 
@@ -18,7 +20,8 @@ import java.math.BigDecimal;
 public class OrderItem {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_items_seq")
+    @SequenceGenerator(name = "order_items_seq", sequenceName = "order_items_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(optional = false, fetch = FetchType.LAZY)
@@ -35,8 +38,9 @@ public class OrderItem {
     @Column(nullable = false)
     private String variationLabel;
 
-    @Column(nullable = false, precision = 12, scale = 2)
-    private BigDecimal price;
+    @Convert(converter = MoneyConverter.class)
+    @Column(name = "price", nullable = false, precision = 12, scale = 2)
+    private long priceCents;
 
     @Min(1)
     @Column(nullable = false)
@@ -53,7 +57,7 @@ public class OrderItem {
         this.restaurant = restaurant;
         this.itemName = v.getItem().getName();
         this.variationLabel = v.getLabel();
-        this.price = v.getPrice();
+        this.priceCents = v.getPriceCents();
         this.quantity = quantity;
         this.cookingMinutes = v.getCookingMinutes();
     }
@@ -64,7 +68,8 @@ public class OrderItem {
     public Restaurant getRestaurant() { return restaurant; }
     public String getItemName() { return itemName; }
     public String getVariationLabel() { return variationLabel; }
-    public BigDecimal getPrice() { return price; }
+    public BigDecimal getPrice() { return Money.toDecimal(priceCents); }
+    public long getPriceCents() { return priceCents; }
     public int getQuantity() { return quantity; }
     public int getCookingMinutes() { return cookingMinutes; }
 }
@@ -1,13 +1,18 @@
 package dev.marievski.fooddelivery.order;
 
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface OrderRepository extends JpaRepository<Order, Long> {
 
@@ -15,9 +20,59 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     @Query("SELECT o FROM Order o WHERE o.id = :id")
     Optional<Order> fetchById(@Param("id") Long id);
 
-    @EntityGraph(attributePaths = {"items"})
-    Page<Order> findByUserId(Long userId, Pageable pageable);
+    // --- смена статуса без чтения сущности: compare-and-set по таблице переходов OrderStatus ---
 
-    @EntityGraph(attributePaths = {"items"})
-    Page<Order> findByStatus(OrderStatus status, Pageable pageable);
-}
\ No newline at end of file
+    /** Проекция для диагностики неудачного CAS и отчёта пакетной смены статуса. */
+    interface IdAndStatus {
+        Long getId();
+        OrderStatus getStatus();
+    }
+
+    @Query("SELECT o.status FROM Order o WHERE o.id = :id")
+    Optional<OrderStatus> findStatusById(@Param("id") Long id);
+
+    @Query("SELECT o.id AS id, o.status AS status FROM Order o WHERE o.id IN :ids")
+    List<IdAndStatus> findStatusesByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Условный UPDATE: меняет статус, только если текущий входит в {@code from}.
+     * Версию поднимаем сами, чтобы @Version у параллельных писателей через сущность оставался честным.
+     * flushAutomatically — чтобы не потерять/не переупорядочить несброшенные изменения текущей транзакции;
+     * clearAutomatically — чтобы уже загруженные в транзакции Order не остались со старыми статусом и версией.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+            UPDATE Order o SET o.status = :next, o.version = o.version + 1
+            WHERE o.id = :id AND o.status IN :from""")
+    int compareAndSetStatus(@Param("id") Long id,
+                            @Param("from") Collection<OrderStatus> from,
+                            @Param("next") OrderStatus next);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+            UPDATE Order o SET o.status = :next, o.version = o.version + 1
+            WHERE o.id IN :ids AND o.status IN :from""")
+    int compareAndSetStatusBulk(@Param("ids") Collection<Long> ids,
+                                @Param("from") Collection<OrderStatus> from,
+                                @Param("next") OrderStatus next);
+
+    /**
+     * Курсорная выборка под выгрузку: JDBC fetch size + read-only, без снимков для dirty checking.
+     * Позиции подтягиваются пачками через @BatchSize на Order.items. Вызывать только внутри транзакции
+     * и закрывать стрим.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+            SELECT o FROM Order o
+            WHERE (:status IS NULL OR o.status = :status)
+              AND (:userId IS NULL OR o.user.id = :userId)
+              AND o.id BETWEEN :fromId AND :toId
+            ORDER BY o.id""")
+    Stream<Order> streamForExport(@Param("status") OrderStatus status,
+                                  @Param("userId") Long userId,
+                                  @Param("fromId") long fromId,
+                                  @Param("toId") long toId);
+}
@@ -1,51 +1,103 @@
 package dev.marievski.fooddelivery.order;
 
 import dev.marievski.fooddelivery.cart.Cart;
+import dev.marievski.fooddelivery.cart.MemoryCartStore;
 import dev.marievski.fooddelivery.cart.CartItem;
 import dev.marievski.fooddelivery.cart.CartRepository;
 import dev.marievski.fooddelivery.cart.CartService;
 import dev.marievski.fooddelivery.common.ApiBadRequestException;
 import dev.marievski.fooddelivery.common.ApiConflictException;
+import dev.marievski.fooddelivery.common.CursorCodec;
+import dev.marievski.fooddelivery.common.Money;
+import dev.marievski.fooddelivery.order.dto.OrderSummaryDto;
+import dev.marievski.fooddelivery.order.dto.StatusChangeResultDto;
+import dev.marievski.fooddelivery.outbox.OutboxService;
 import dev.marievski.fooddelivery.restaurant.MenuVariation;
 import dev.marievski.fooddelivery.user.UserRepository;
-import org.springframework.data.domain.Page;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 public class OrderService {
 
-    private static final BigDecimal MIN_ORDER_TOTAL = BigDecimal.valueOf(300.00);
+    private static final long MIN_ORDER_TOTAL_CENTS = 300_00;
+    private static final int MAX_PAGE_SIZE = 100;
 
     private final OrderRepository orders;
+    private final OrderSummaryRepository summaries;
     private final CartRepository carts;
     private final CartService cartService;
     private final UserRepository users;
+    private final OutboxService outbox;
+    private final ApplicationEventPublisher events;
+    private final QuoteTokens quotes;
+    private final MemoryCartStore memoryCarts;
 
-    public OrderService(OrderRepository orders, CartRepository carts,
-                        CartService cartService, UserRepository users) {
+    public OrderService(OrderRepository orders, OrderSummaryRepository summaries, CartRepository carts,
+                        CartService cartService, UserRepository users, OutboxService outbox,
+                        ApplicationEventPublisher events, QuoteTokens quotes, MemoryCartStore memoryCarts) {
         this.orders = orders;
+        this.summaries = summaries;
         this.carts = carts;
         this.cartService = cartService;
         this.users = users;
+        this.outbox = outbox;
+        this.events = events;
+        this.quotes = quotes;
+        this.memoryCarts = memoryCarts;
     }
 
     @Transactional
     public Order createFromCart(Long userId) {
+        return createFromCart(userId, null);
+    }
+
+    /**
+     * @param quoteToken котировка из GET /cart?quote=true (может быть null). Если корзина и меню с тех пор
+     *                   не менялись, проверки корзины пропускаются; иначе — полная проверка.
+     */
+    @Transactional
+    public Order createFromCart(Long userId, String quoteToken) {
         validateUserExists(userId);
+        memoryCarts.flushAndEvict(userId); // app.carts.storage=memory: заказ собирается из того, что в БД
 
         Cart cart = findActiveCart(userId);
-        validateCart(cart);
+        if (!quotes.matches(quoteToken, cart)) {
+            validateCart(cart);
+        }
 
         Order order = buildOrderFromCart(cart);
         order = orders.save(order);
 
         transferCartItemsToOrder(cart, order);
+        summaries.save(new OrderSummary(order, cart.getRestaurant().getId()));
         deactivateCart(cart);
 
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("orderId", order.getId());
+        payload.put("userId", userId);
+        payload.put("restaurantId", cart.getRestaurant().getId());
+        payload.put("status", order.getStatus());
+        payload.put("total", order.getTotal());
+        payload.put("etaMinutes", order.getEtaMinutes());
+        outbox.append(OutboxService.ORDER, order.getId(), "ORDER_CREATED", payload);
+        events.publishEvent(new OrderCreated(order.getId(), cart.getRestaurant().getId(),
+                order.getTotalCents(), order.getEtaMinutes(), order.getCreatedAt()));
+
         return order;
     }
 
@@ -54,32 +106,128 @@ public class OrderService {
                 .orElseThrow(() -> new ApiBadRequestException("ORDER_NOT_FOUND", "Order not found"));
     }
 
-    public Page<Order> byUser(Long userId, Pageable pageable) {
-        return orders.findByUserId(userId, pageable);
+    /**
+     * Страница заказов по keyset-курсору (новые сначала) из read-модели order_summaries:
+     * LIMIT в SQL, строки сразу в DTO, без сущностей Order/OrderItem/User и dirty checking.
+     */
+    @Transactional(readOnly = true)
+    public OrderSlice page(Long userId, OrderStatus status, String cursor, int limit) {
+        int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        long beforeId = cursor == null || cursor.isBlank() ? Long.MAX_VALUE : CursorCodec.decodeLong(cursor);
+        Pageable window = PageRequest.of(0, size + 1); // +1 строка, чтобы понять, есть ли следующая страница
+
+        List<OrderSummaryDto> rows;
+        if (userId != null && status != null) {
+            rows = summaries.findPageByUserAndStatusBefore(userId, status, beforeId, window);
+        } else if (userId != null) {
+            rows = summaries.findPageByUserBefore(userId, beforeId, window);
+        } else if (status != null) {
+            rows = summaries.findPageByStatusBefore(status, beforeId, window);
+        } else {
+            rows = summaries.findPageBefore(beforeId, window);
+        }
+
+        boolean hasMore = rows.size() > size;
+        if (hasMore) rows = rows.subList(0, size);
+        String next = hasMore ? CursorCodec.encode(rows.get(rows.size() - 1).getId()) : null;
+        return new OrderSlice(rows, next);
+    }
+
+    public record OrderSlice(List<OrderSummaryDto> orders, String nextCursor) {}
+
+    /**
+     * Смена статуса одним условным UPDATE — без чтения заказа и без конфликтов @Version.
+     * Если строка не обновилась, дочитываем только статус, чтобы вернуть понятную ошибку.
+     */
+    @Transactional
+    public void changeStatus(Long id, OrderStatus newStatus) {
+        if (!newStatus.allowedFrom().isEmpty()
+                && orders.compareAndSetStatus(id, newStatus.allowedFrom(), newStatus) == 1) {
+            summaries.updateStatus(List.of(id), newStatus);
+            publishStatusChanged(id, newStatus);
+            return;
+        }
+        OrderStatus current = orders.findStatusById(id)
+                .orElseThrow(() -> new ApiBadRequestException("ORDER_NOT_FOUND", "Order not found"));
+        if (current == newStatus) {
+            return; // Идемпотентность - тот же статус
+        }
+        throw transitionConflict(current, newStatus);
     }
 
-    public Page<Order> byStatus(OrderStatus status, Pageable pageable) {
-        return orders.findByStatus(status, pageable);
+    @Transactional
+    public void cancel(Long id) {
+        changeStatus(id, OrderStatus.CANCELLED);
     }
 
+    /**
+     * Пакетная смена статуса: одна выборка статусов и один условный UPDATE на допустимые id.
+     * Выборка до UPDATE нужна, чтобы отличить реальный переход (событие в outbox) от уже стоящего статуса;
+     * если кто-то успел поменять заказ между ними, дочитываем статусы проигравших CAS.
+     * Результат — по каждому id в порядке запроса (дубликаты схлопываются).
+     */
     @Transactional
-    public Order changeStatus(Long id, OrderStatus newStatus) {
-        Order order = getOrThrow(id);
+    public List<StatusChangeResultDto> changeStatusBulk(Collection<Long> ids, OrderStatus newStatus) {
+        Set<Long> unique = new LinkedHashSet<>(ids);
+        Map<Long, OrderStatus> current = statusesOf(unique);
 
-        if (newStatus == OrderStatus.CANCELLED) {
-            return cancelOrder(order);
+        List<Long> candidates = new ArrayList<>();
+        for (Long id : unique) {
+            OrderStatus status = current.get(id);
+            if (status != null && status != newStatus && newStatus.allowedFrom().contains(status)) {
+                candidates.add(id);
+            }
         }
 
-        validateStatusTransition(order.getStatus(), newStatus);
-        order.setStatus(newStatus);
+        List<Long> moved = candidates;
+        if (!candidates.isEmpty()) {
+            int updated = orders.compareAndSetStatusBulk(candidates, newStatus.allowedFrom(), newStatus);
+            if (updated != candidates.size()) {
+                // гонка: часть заказов успели перевести параллельно — берём их фактический статус
+                Map<Long, OrderStatus> after = statusesOf(candidates);
+                moved = new ArrayList<>();
+                for (Long id : candidates) {
+                    OrderStatus before = current.get(id);
+                    OrderStatus now = after.get(id);
+                    current.put(id, now);
+                    if (now == newStatus && before != newStatus) moved.add(id);
+                }
+            } else {
+                for (Long id : candidates) current.put(id, newStatus);
+            }
+        }
 
-        return order;
+        List<StatusChangeResultDto> results = new ArrayList<>(unique.size());
+        for (Long id : unique) {
+            OrderStatus status = current.get(id);
+            if (status == null) {
+                results.add(new StatusChangeResultDto(id, null, "ORDER_NOT_FOUND", "Order not found"));
+            } else if (status == newStatus) {
+                results.add(new StatusChangeResultDto(id, status.name(), null, null));
+            } else {
+                ApiConflictException conflict = transitionConflict(status, newStatus);
+                results.add(new StatusChangeResultDto(id, status.name(), conflict.getCode(), conflict.getMessage()));
+            }
+        }
+        if (!moved.isEmpty()) {
+            summaries.updateStatus(moved, newStatus);
+            for (Long id : moved) publishStatusChanged(id, newStatus);
+        }
+        return results;
     }
 
-    @Transactional
-    public void cancel(Long id) {
-        Order order = getOrThrow(id);
-        cancelOrder(order);
+    private Map<Long, OrderStatus> statusesOf(Collection<Long> ids) {
+        Map<Long, OrderStatus> statuses = new HashMap<>();
+        for (OrderRepository.IdAndStatus row : orders.findStatusesByIdIn(ids)) {
+            statuses.put(row.getId(), row.getStatus());
+        }
+        return statuses;
+    }
+
+    private void publishStatusChanged(Long id, OrderStatus status) {
+        outbox.append(OutboxService.ORDER, id, "ORDER_STATUS_CHANGED",
+                Map.of("orderId", id, "status", status));
+        events.publishEvent(new OrderStatusChanged(id, status)); // живые трекеры (SSE) — после коммита
     }
 
     private void validateUserExists(Long userId) {
@@ -92,15 +240,32 @@ public class OrderService {
                 .orElseThrow(() -> new ApiBadRequestException("ACTIVE_CART_NOT_FOUND", "Active cart not found"));
     }
 
+    /**
+     * Котировка для GET /cart?quote=true: токен выдаётся, только если корзину прямо сейчас можно оформить.
+     * null — оформление не пройдёт (причину вернёт POST /orders) или итоги нужно пересчитать.
+     */
+    public String quote(Cart cart) {
+        if (cart.getItems().isEmpty() || !cartService.totalsMatchItems(cart)) return null;
+        try {
+            validateVariationsAvailability(cart);
+            validateMinimumTotal(cart);
+        } catch (ApiConflictException e) {
+            return null;
+        }
+        return quotes.issue(cart);
+    }
+
     private void validateCart(Cart cart) {
         if (cart.getItems().isEmpty()) {
             throw new ApiConflictException("EMPTY_CART", "Cannot create order without items");
         }
 
         validateVariationsAvailability(cart);
+        cartService.verifyTotals(cart);
         validateMinimumTotal(cart);
     }
 
+    /** По самим вариациям, а не по каталогу: он может отставать (правки с других инстансов, перезагрузка). */
     private void validateVariationsAvailability(Cart cart) {
         for (CartItem item : cart.getItems()) {
             MenuVariation variation = item.getVariation();
@@ -113,18 +278,17 @@ public class OrderService {
     }
 
     private void validateMinimumTotal(Cart cart) {
-        BigDecimal total = cartService.subtotal(cart);
-        if (total.compareTo(MIN_ORDER_TOTAL) < 0) {
+        if (cart.getSubtotalCents() < MIN_ORDER_TOTAL_CENTS) {
             throw new ApiConflictException("MIN_TOTAL_NOT_REACHED",
-                    "Minimum order total is " + MIN_ORDER_TOTAL);
+                    "Minimum order total is " + Money.toDecimal(MIN_ORDER_TOTAL_CENTS));
         }
     }
 
     private Order buildOrderFromCart(Cart cart) {
         Order order = new Order();
         order.setUser(cart.getUser());
-        order.setTotal(cartService.subtotal(cart));
-        order.setEtaMinutes(cartService.etaMinutes(cart));
+        order.setTotalCents(cart.getSubtotalCents());
+        order.setEtaMinutes(cart.getEtaMinutes());
         order.setStatus(OrderStatus.NEW);
         return order;
     }
@@ -145,58 +309,15 @@ public class OrderService {
         cart.setActive(false);
     }
 
-    private Order cancelOrder(Order order) {
-        if (order.getStatus() == OrderStatus.DELIVERED) {
-            throw new ApiConflictException("CANNOT_CANCEL_DELIVERED",
+    private ApiConflictException transitionConflict(OrderStatus current, OrderStatus next) {
+        if (next == OrderStatus.CANCELLED && current == OrderStatus.DELIVERED) {
+            return new ApiConflictException("CANNOT_CANCEL_DELIVERED",
                     "Delivered order cannot be cancelled");
         }
-        order.setStatus(OrderStatus.CANCELLED);
-        return order;
-    }
-
-    private void validateStatusTransition(OrderStatus current, OrderStatus next) {
-        if (current == next) {
-            return; // Идемпотентность - тот же статус
-        }
-
-        switch (next) {
-            case CONFIRMED -> {
-                if (current != OrderStatus.NEW) {
-                    throw new ApiConflictException("BAD_TRANSITION",
-                            "CONFIRMED allowed only from NEW");
-                }
-            }
-            case READY -> {
-                if (current != OrderStatus.CONFIRMED) {
-                    throw new ApiConflictException("BAD_TRANSITION",
-                            "READY allowed only from CONFIRMED");
-                }
-            }
-            case ASSIGNED -> {
-                if (current != OrderStatus.READY) {
-                    throw new ApiConflictException("BAD_TRANSITION",
-                            "ASSIGNED allowed only from READY");
-                }
-            }
-            case DELIVERING -> {
-                if (current != OrderStatus.ASSIGNED) {
-                    throw new ApiConflictException("BAD_TRANSITION",
-                            "DELIVERING allowed only from ASSIGNED");
-                }
-            }
-            case DELIVERED -> {
-                if (current != OrderStatus.DELIVERING) {
-                    throw new ApiConflictException("BAD_TRANSITION",
-                            "DELIVERED allowed only from DELIVERING");
-                }
-            }
-            case NEW -> {
-                throw new ApiConflictException("BAD_TRANSITION",
-                        "Cannot return to NEW");
-            }
-            case CANCELLED -> {
-                // Обрабатывается в cancelOrder
-            }
+        if (next.allowedFrom().isEmpty()) {
+            return new ApiConflictException("BAD_TRANSITION", "Cannot return to " + next);
         }
+        String from = next.allowedFrom().stream().map(Enum::name).collect(Collectors.joining(", "));
+        return new ApiConflictException("BAD_TRANSITION", next + " allowed only from " + from);
     }
-}
\ No newline at end of file
+}
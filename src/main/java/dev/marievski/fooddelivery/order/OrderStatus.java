@@ -1,5 +1,11 @@
 package dev.marievski.fooddelivery.order;
 
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
 /**
  * Статус заказа. Держим строки в БД (EnumType.STRING) для читаемости.
  * Минимально нужные статусы под тестовое и правила.
@@ -11,5 +17,33 @@ public enum OrderStatus {
     ASSIGNED,    // назначен курьер
     DELIVERING,  // в доставке
     DELIVERED,   // доставлен
-    CANCELLED    // отменён
+    CANCELLED;   // отменён
+
+    /**
+     * Таблица переходов: для каждого статуса — из каких статусов в него можно перейти.
+     * Считается один раз; по ней же строится условие {@code status IN (...)} в compare-and-set UPDATE.
+     * Повтор того же статуса сюда не входит — это идемпотентный no-op, без записи в БД.
+     */
+    private static final Map<OrderStatus, Set<OrderStatus>> ALLOWED_FROM = new EnumMap<>(OrderStatus.class);
+
+    static {
+        ALLOWED_FROM.put(NEW, EnumSet.noneOf(OrderStatus.class)); // вернуться в NEW нельзя
+        ALLOWED_FROM.put(CONFIRMED, EnumSet.of(NEW));
+        ALLOWED_FROM.put(READY, EnumSet.of(CONFIRMED));
+        ALLOWED_FROM.put(ASSIGNED, EnumSet.of(READY));
+        ALLOWED_FROM.put(DELIVERING, EnumSet.of(ASSIGNED));
+        ALLOWED_FROM.put(DELIVERED, EnumSet.of(DELIVERING));
+        ALLOWED_FROM.put(CANCELLED, EnumSet.complementOf(EnumSet.of(DELIVERED, CANCELLED)));
+        ALLOWED_FROM.replaceAll((status, from) -> Collections.unmodifiableSet(from));
+    }
+
+    /** Статусы, из которых разрешён переход в этот. */
+    public Set<OrderStatus> allowedFrom() {
+        return ALLOWED_FROM.get(this);
+    }
+
+    /** Можно ли перейти из текущего статуса в {@code next} (тот же статус — можно, это no-op). */
+    public boolean canMoveTo(OrderStatus next) {
+        return this == next || next.allowedFrom().contains(this);
+    }
 }
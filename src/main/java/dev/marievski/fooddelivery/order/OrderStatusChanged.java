@@ -0,0 +1,7 @@
+package dev.marievski.fooddelivery.order;
+
+/**
+ * Внутреннее Spring-событие о смене статуса заказа (для слушателей в этом процессе, например OrderTracker).
+ * Публикуется внутри транзакции — слушать через @TransactionalEventListener(AFTER_COMMIT).
+ */
+public record OrderStatusChanged(Long orderId, OrderStatus status) {}
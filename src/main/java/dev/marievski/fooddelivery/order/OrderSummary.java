@@ -0,0 +1,82 @@
+package dev.marievski.fooddelivery.order;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Компактная read-модель заказа для списков: только то, что показывают клиентские приложения.
+ * Поддерживается OrderService в той же транзакции, что и сам заказ; полные детали — GET /orders/{id}.
+ * Ключ — id заказа, связей с сущностями нет намеренно: читаем проекцией без гидрации.
+ */
+@Entity
+@Table(name = "order_summaries", indexes = {
+        @Index(name = "idx_order_summaries_user_id", columnList = "user_id, order_id"),
+        @Index(name = "idx_order_summaries_status_id", columnList = "status, order_id")
+})
+public class OrderSummary implements Persistable<Long> {
+
+    @Id
+    @Column(name = "order_id")
+    private Long orderId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "restaurant_id")
+    private Long restaurantId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private OrderStatus status;
+
+    @Column(precision = 12, scale = 2, nullable = false)
+    private BigDecimal total;
+
+    @Column(name = "eta_minutes", nullable = false)
+    private int etaMinutes;
+
+    @Column(name = "item_count", nullable = false)
+    private int itemCount; // сумма количеств по позициям
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    // id присваиваем сами, поэтому подсказываем Spring Data, что это INSERT, а не merge с лишним SELECT
+    @Transient
+    private boolean isNew = true;
+
+    protected OrderSummary() {}
+
+    public OrderSummary(Order order, Long restaurantId) {
+        this.orderId = order.getId();
+        this.userId = order.getUser().getId();
+        this.restaurantId = restaurantId;
+        this.status = order.getStatus();
+        this.total = order.getTotal();
+        this.etaMinutes = order.getEtaMinutes();
+        this.itemCount = order.getItems().stream().mapToInt(OrderItem::getQuantity).sum();
+        this.createdAt = order.getCreatedAt();
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() { this.isNew = false; }
+
+    @Override
+    public Long getId() { return orderId; }
+
+    @Override
+    public boolean isNew() { return isNew; }
+
+    public Long getOrderId() { return orderId; }
+    public Long getUserId() { return userId; }
+    public Long getRestaurantId() { return restaurantId; }
+    public OrderStatus getStatus() { return status; }
+    public BigDecimal getTotal() { return total; }
+    public int getEtaMinutes() { return etaMinutes; }
+    public int getItemCount() { return itemCount; }
+    public Instant getCreatedAt() { return createdAt; }
+}
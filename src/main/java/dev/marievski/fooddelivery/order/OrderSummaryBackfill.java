@@ -0,0 +1,32 @@
+package dev.marievski.fooddelivery.order;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * При старте досоздаёт order_summaries для заказов, созданных до появления read-модели.
+ */
+@Component
+public class OrderSummaryBackfill {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderSummaryBackfill.class);
+
+    private final OrderSummaryRepository summaries;
+
+    public OrderSummaryBackfill(OrderSummaryRepository summaries) {
+        this.summaries = summaries;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfill() {
+        int created = summaries.backfillMissing();
+        if (created > 0) {
+            log.info("Backfilled {} order summaries", created);
+        }
+    }
+}
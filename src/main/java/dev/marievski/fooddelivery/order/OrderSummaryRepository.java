@@ -0,0 +1,87 @@
+package dev.marievski.fooddelivery.order;
+
+import dev.marievski.fooddelivery.order.dto.OrderSummaryDto;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Read-модель списков заказов. Чтение — constructor expression прямо в DTO (без persistence context),
+ * keyset по order_id (новые сначала), LIMIT через Pageable.
+ */
+public interface OrderSummaryRepository extends JpaRepository<OrderSummary, Long> {
+
+    String SELECT_DTO = """
+            SELECT new dev.marievski.fooddelivery.order.dto.OrderSummaryDto(
+                s.orderId, s.userId, s.restaurantId, s.status, s.total, s.etaMinutes, s.itemCount, s.createdAt)
+            FROM OrderSummary s
+            """;
+
+    @Query(SELECT_DTO + "WHERE s.orderId < :beforeId ORDER BY s.orderId DESC")
+    List<OrderSummaryDto> findPageBefore(@Param("beforeId") long beforeId, Pageable limit);
+
+    @Query(SELECT_DTO + "WHERE s.userId = :userId AND s.orderId < :beforeId ORDER BY s.orderId DESC")
+    List<OrderSummaryDto> findPageByUserBefore(@Param("userId") Long userId,
+                                               @Param("beforeId") long beforeId,
+                                               Pageable limit);
+
+    @Query(SELECT_DTO + "WHERE s.status = :status AND s.orderId < :beforeId ORDER BY s.orderId DESC")
+    List<OrderSummaryDto> findPageByStatusBefore(@Param("status") OrderStatus status,
+                                                 @Param("beforeId") long beforeId,
+                                                 Pageable limit);
+
+    @Query(SELECT_DTO + """
+            WHERE s.userId = :userId AND s.status = :status AND s.orderId < :beforeId
+            ORDER BY s.orderId DESC""")
+    List<OrderSummaryDto> findPageByUserAndStatusBefore(@Param("userId") Long userId,
+                                                        @Param("status") OrderStatus status,
+                                                        @Param("beforeId") long beforeId,
+                                                        Pageable limit);
+
+    /** Снимок для трекинга заказа: статус и ETA без загрузки Order с позициями. */
+    interface Tracking {
+        OrderStatus getStatus();
+        int getEtaMinutes();
+    }
+
+    @Query("SELECT s.status AS status, s.etaMinutes AS etaMinutes FROM OrderSummary s WHERE s.orderId = :id")
+    Optional<Tracking> findTrackingById(@Param("id") Long id);
+
+    /** Ресторан и сумма заказов — для дневной статистики по сменам статуса. */
+    interface RestaurantAndTotal {
+        Long getOrderId();
+        Long getRestaurantId();
+        BigDecimal getTotal();
+    }
+
+    @Query("""
+            SELECT s.orderId AS orderId, s.restaurantId AS restaurantId, s.total AS total
+            FROM OrderSummary s WHERE s.orderId IN :ids""")
+    List<RestaurantAndTotal> findRestaurantAndTotalByOrderIdIn(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("UPDATE OrderSummary s SET s.status = :status WHERE s.orderId IN :ids")
+    int updateStatus(@Param("ids") Collection<Long> ids, @Param("status") OrderStatus status);
+
+    /** Досоздать сводки для заказов, появившихся до read-модели. Идемпотентно. */
+    @Modifying
+    @Query(value = """
+            INSERT INTO order_summaries
+                (order_id, user_id, restaurant_id, status, total, eta_minutes, item_count, created_at)
+            SELECT o.id, o.user_id,
+                   (SELECT MIN(i.restaurant_id) FROM order_items i WHERE i.order_id = o.id),
+                   o.status, o.total, o.eta_minutes,
+                   COALESCE((SELECT SUM(i.quantity) FROM order_items i WHERE i.order_id = o.id), 0),
+                   o.created_at
+            FROM orders o
+            WHERE NOT EXISTS (SELECT 1 FROM order_summaries s WHERE s.order_id = o.id)""",
+            nativeQuery = true)
+    int backfillMissing();
+}
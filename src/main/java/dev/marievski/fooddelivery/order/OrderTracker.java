@@ -0,0 +1,147 @@
+package dev.marievski.fooddelivery.order;
+
+import dev.marievski.fooddelivery.common.ApiBadRequestException;
+import dev.marievski.fooddelivery.order.dto.OrderTrackingDto;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Живое отслеживание заказа по SSE (GET /orders/{id}/events).
+ * <p>
+ * Подписки держатся в памяти по id заказа; поток на соединение не занимается — SseEmitter работает поверх
+ * async servlet, запись идёт только при событии или heartbeat. Смены статуса приходят из OrderService
+ * после коммита. Снимок статуса/ETA при подключении — одна строка из order_summaries, без fetchById.
+ * Узел хранит только своих подписчиков: в кластере события сюда должны приходить через outbox-подписчика.
+ */
+@Component
+public class OrderTracker {
+
+    private final OrderSummaryRepository summaries;
+    private final long idleTimeoutNanos;
+    private final Map<Long, Set<Subscription>> byOrder = new ConcurrentHashMap<>();
+    private final AtomicInteger active = new AtomicInteger();
+
+    private static final class Subscription {
+        final Long orderId;
+        final SseEmitter emitter = new SseEmitter(0L); // без таймаута контейнера: простой гасим сами
+        volatile int etaMinutes;
+        volatile long lastEventAt = System.nanoTime();
+
+        Subscription(Long orderId) {
+            this.orderId = orderId;
+        }
+    }
+
+    public OrderTracker(OrderSummaryRepository summaries,
+                        MeterRegistry meterRegistry,
+                        @Value("${app.orders.tracking.idle-timeout:PT30M}") Duration idleTimeout) {
+        this.summaries = summaries;
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+        Gauge.builder("orders.tracking.subscribers", active, AtomicInteger::get).register(meterRegistry);
+    }
+
+    /**
+     * Подписка регистрируется до чтения снимка: смена статуса, закоммиченная между ними, всё равно придёт
+     * событием (клиент может получить тот же статус дважды — дедуплицирует по status). Снимок читается и
+     * отправляется под монитором подписки — событие не обгонит более старый снимок.
+     */
+    public SseEmitter subscribe(Long orderId) {
+        Subscription sub = new Subscription(orderId);
+        sub.emitter.onCompletion(() -> remove(sub));
+        sub.emitter.onTimeout(() -> remove(sub));
+        sub.emitter.onError(e -> remove(sub));
+        byOrder.compute(orderId, (id, subs) -> {
+            if (subs == null) subs = ConcurrentHashMap.newKeySet();
+            if (subs.add(sub)) active.incrementAndGet();
+            return subs;
+        });
+
+        synchronized (sub) {
+            OrderSummaryRepository.Tracking snapshot = summaries.findTrackingById(orderId).orElse(null);
+            if (snapshot == null) {
+                remove(sub);
+                throw new ApiBadRequestException("ORDER_NOT_FOUND", "Order not found");
+            }
+            sub.etaMinutes = snapshot.getEtaMinutes();
+            if (send(sub, snapshot.getStatus()) && isFinal(snapshot.getStatus())) {
+                close(sub, null); // дальше изменений не будет
+            }
+        }
+        return sub.emitter;
+    }
+
+    @TransactionalEventListener
+    public void onStatusChanged(OrderStatusChanged event) {
+        Set<Subscription> subs = byOrder.get(event.orderId());
+        if (subs == null) return;
+        for (Subscription sub : subs) {
+            synchronized (sub) {
+                if (send(sub, event.status()) && isFinal(event.status())) {
+                    close(sub, null);
+                }
+            }
+        }
+    }
+
+    /** Heartbeat держит соединение живым через прокси и заодно выявляет отвалившихся клиентов; простаивающих закрываем. */
+    @Scheduled(fixedDelayString = "${app.orders.tracking.heartbeat:PT15S}")
+    public void heartbeat() {
+        long now = System.nanoTime();
+        for (Set<Subscription> subs : byOrder.values()) {
+            for (Subscription sub : subs) {
+                if (now - sub.lastEventAt > idleTimeoutNanos) {
+                    close(sub, null);
+                    continue;
+                }
+                try {
+                    sub.emitter.send(SseEmitter.event().comment("hb"));
+                } catch (IOException | IllegalStateException e) {
+                    close(sub, e);
+                }
+            }
+        }
+    }
+
+    private boolean send(Subscription sub, OrderStatus status) {
+        try {
+            sub.emitter.send(SseEmitter.event()
+                    .name("status")
+                    .data(new OrderTrackingDto(sub.orderId, status.name(), sub.etaMinutes), MediaType.APPLICATION_JSON));
+            sub.lastEventAt = System.nanoTime();
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            close(sub, e);
+            return false;
+        }
+    }
+
+    private void close(Subscription sub, Throwable error) {
+        remove(sub); // колбэки emitter'а тоже уберут, но не сразу — после async dispatch
+        if (error != null) sub.emitter.completeWithError(error);
+        else sub.emitter.complete();
+    }
+
+    private void remove(Subscription sub) {
+        byOrder.computeIfPresent(sub.orderId, (id, subs) -> {
+            if (subs.remove(sub)) active.decrementAndGet();
+            return subs.isEmpty() ? null : subs;
+        });
+    }
+
+    private static boolean isFinal(OrderStatus status) {
+        return status == OrderStatus.DELIVERED || status == OrderStatus.CANCELLED;
+    }
+}
@@ -0,0 +1,106 @@
+package dev.marievski.fooddelivery.order;
+
+import dev.marievski.fooddelivery.cart.Cart;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Подписанные котировки корзины для быстрого оформления заказа.
+ * <p>
+ * Токен = base64url("cartId|revision|menuVersion|subtotalCents|etaMinutes|expiresAt") + "." + HMAC-SHA256.
+ * Если на оформлении ревизия корзины и версия меню ресторана те же, что в токене, корзина с момента котировки
+ * не менялась и проверки доступности/итогов/минимальной суммы повторять не нужно. Любое расхождение,
+ * истёкший или чужой токен — обычная полная проверка, ошибки клиенту нет.
+ * <p>
+ * Без app.checkout.quote-secret ключ случайный на процесс: после рестарта или на другом инстансе
+ * токены просто не совпадут. Для нескольких инстансов секрет нужно задать.
+ */
+@Component
+public class QuoteTokens {
+
+    private static final Logger log = LoggerFactory.getLogger(QuoteTokens.class);
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final SecretKeySpec key;
+    private final Duration ttl;
+    private final Counter hits;
+    private final Counter misses;
+
+    public QuoteTokens(@Value("${app.checkout.quote-secret:}") String secret,
+                       @Value("${app.checkout.quote-ttl:PT15M}") Duration ttl,
+                       MeterRegistry meterRegistry) {
+        byte[] keyBytes;
+        if (secret.isBlank()) {
+            log.warn("app.checkout.quote-secret is not set, using a random per-process key");
+            keyBytes = new byte[32];
+            new SecureRandom().nextBytes(keyBytes);
+        } else {
+            keyBytes = secret.getBytes(StandardCharsets.UTF_8);
+        }
+        this.key = new SecretKeySpec(keyBytes, ALGORITHM);
+        this.ttl = ttl;
+        this.hits = Counter.builder("orders.checkout.quote").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("orders.checkout.quote").tag("result", "miss").register(meterRegistry);
+    }
+
+    /** Котировка текущего состояния корзины (корзина должна быть привязана к ресторану). */
+    public String issue(Cart cart) {
+        String payload = cart.getId() + "|" + cart.getRevision() + "|" + cart.getRestaurant().getMenuVersion()
+                + "|" + cart.getSubtotalCents() + "|" + cart.getEtaMinutes()
+                + "|" + Instant.now().plus(ttl).getEpochSecond();
+        String body = ENCODER.encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+        return body + "." + ENCODER.encodeToString(sign(body));
+    }
+
+    /** true — токен подлинный, не истёк и все штампы совпадают с корзиной. */
+    public boolean matches(String token, Cart cart) {
+        boolean ok = token != null && check(token, cart);
+        (ok ? hits : misses).increment();
+        return ok;
+    }
+
+    private boolean check(String token, Cart cart) {
+        int dot = token.indexOf('.');
+        if (dot <= 0) return false;
+        String body = token.substring(0, dot);
+        try {
+            if (!MessageDigest.isEqual(sign(body), DECODER.decode(token.substring(dot + 1)))) return false;
+            String[] p = new String(DECODER.decode(body), StandardCharsets.UTF_8).split("\\|", -1);
+            if (p.length != 6 || cart.getRestaurant() == null) return false;
+            return Long.parseLong(p[5]) > Instant.now().getEpochSecond()
+                    && Long.parseLong(p[0]) == cart.getId()
+                    && Long.parseLong(p[1]) == cart.getRevision()
+                    && Long.parseLong(p[2]) == cart.getRestaurant().getMenuVersion()
+                    && Long.parseLong(p[3]) == cart.getSubtotalCents()
+                    && Integer.parseInt(p[4]) == cart.getEtaMinutes();
+        } catch (IllegalArgumentException e) { // битый base64 или число
+            return false;
+        }
+    }
+
+    private byte[] sign(String body) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(body.getBytes(StandardCharsets.US_ASCII));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package dev.marievski.fooddelivery.order.dto;
+
+import dev.marievski.fooddelivery.order.OrderStatus;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public class BulkStatusUpdateRequest {
+    @NotEmpty
+    @Size(max = 500)
+    private List<@NotNull Long> ids;
+    @NotNull
+    private OrderStatus status;
+
+    public List<Long> getIds() { return ids; }
+    public void setIds(List<Long> ids) { this.ids = ids; }
+    public OrderStatus getStatus() { return status; }
+    public void setStatus(OrderStatus status) { this.status = status; }
+}
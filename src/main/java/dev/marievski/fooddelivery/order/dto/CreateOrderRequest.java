@@ -5,7 +5,11 @@ import jakarta.validation.constraints.NotNull;
 public class CreateOrderRequest {
     @NotNull
     private Long userId;
+    /** Необязательно: quoteToken из GET /cart?quote=true — быстрый путь без повторной проверки корзины. */
+    private String quoteToken;
 
     public Long getUserId() { return userId; }
     public void setUserId(Long userId) { this.userId = userId; }
+    public String getQuoteToken() { return quoteToken; }
+    public void setQuoteToken(String quoteToken) { this.quoteToken = quoteToken; }
 }
\ No newline at end of file
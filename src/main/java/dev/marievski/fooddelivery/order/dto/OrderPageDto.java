@@ -0,0 +1,20 @@
+package dev.marievski.fooddelivery.order.dto;
+
+import java.util.List;
+
+public class OrderPageDto {
+    private List<OrderSummaryDto> items;
+    private String nextCursor; // null — дальше страниц нет
+
+    public OrderPageDto() {}
+
+    public OrderPageDto(List<OrderSummaryDto> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<OrderSummaryDto> getItems() { return items; }
+    public void setItems(List<OrderSummaryDto> items) { this.items = items; }
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+}
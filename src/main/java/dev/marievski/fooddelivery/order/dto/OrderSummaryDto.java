@@ -0,0 +1,49 @@
+package dev.marievski.fooddelivery.order.dto;
+
+import dev.marievski.fooddelivery.order.OrderStatus;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+public class OrderSummaryDto {
+    private Long id;
+    private Long userId;
+    private Long restaurantId;
+    private String status;
+    private BigDecimal total;
+    private int etaMinutes;
+    private int itemCount;
+    private Instant createdAt;
+
+    public OrderSummaryDto() {}
+
+    /** Для JPQL constructor expression — строки маппятся напрямую, без управляемых сущностей. */
+    public OrderSummaryDto(Long id, Long userId, Long restaurantId, OrderStatus status,
+                           BigDecimal total, int etaMinutes, int itemCount, Instant createdAt) {
+        this.id = id;
+        this.userId = userId;
+        this.restaurantId = restaurantId;
+        this.status = status != null ? status.name() : null;
+        this.total = total;
+        this.etaMinutes = etaMinutes;
+        this.itemCount = itemCount;
+        this.createdAt = createdAt;
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+    public Long getRestaurantId() { return restaurantId; }
+    public void setRestaurantId(Long restaurantId) { this.restaurantId = restaurantId; }
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+    public BigDecimal getTotal() { return total; }
+    public void setTotal(BigDecimal total) { this.total = total; }
+    public int getEtaMinutes() { return etaMinutes; }
+    public void setEtaMinutes(int etaMinutes) { this.etaMinutes = etaMinutes; }
+    public int getItemCount() { return itemCount; }
+    public void setItemCount(int itemCount) { this.itemCount = itemCount; }
+    public Instant getCreatedAt() { return createdAt; }
+    public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+}
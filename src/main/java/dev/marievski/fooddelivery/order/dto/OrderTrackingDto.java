@@ -0,0 +1,22 @@
+package dev.marievski.fooddelivery.order.dto;
+
+public class OrderTrackingDto {
+    private Long orderId;
+    private String status;
+    private int etaMinutes;
+
+    public OrderTrackingDto() {}
+
+    public OrderTrackingDto(Long orderId, String status, int etaMinutes) {
+        this.orderId = orderId;
+        this.status = status;
+        this.etaMinutes = etaMinutes;
+    }
+
+    public Long getOrderId() { return orderId; }
+    public void setOrderId(Long orderId) { this.orderId = orderId; }
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+    public int getEtaMinutes() { return etaMinutes; }
+    public void setEtaMinutes(int etaMinutes) { this.etaMinutes = etaMinutes; }
+}
@@ -0,0 +1,30 @@
+package dev.marievski.fooddelivery.order.dto;
+
+/**
+ * Результат перевода одного заказа в пакетной смене статуса.
+ * code == null — переход выполнен (или заказ уже был в этом статусе).
+ */
+public class StatusChangeResultDto {
+    private Long id;
+    private String status;  // текущий статус после операции, null если заказа нет
+    private String code;    // ORDER_NOT_FOUND / BAD_TRANSITION / CANNOT_CANCEL_DELIVERED
+    private String message;
+
+    public StatusChangeResultDto() {}
+
+    public StatusChangeResultDto(Long id, String status, String code, String message) {
+        this.id = id;
+        this.status = status;
+        this.code = code;
+        this.message = message;
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+    public String getCode() { return code; }
+    public void setCode(String code) { this.code = code; }
+    public String getMessage() { return message; }
+    public void setMessage(String message) { this.message = message; }
+}
@@ -1,13 +1,14 @@
 package dev.marievski.fooddelivery.order.mapper;
 
+import dev.marievski.fooddelivery.common.Money;
 import dev.marievski.fooddelivery.order.OrderItem;
 import dev.marievski.fooddelivery.order.dto.OrderItemDto;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 
-@Mapper(componentModel = "spring")
+@Mapper(componentModel = "spring", imports = Money.class)
 public interface OrderItemMapper {
 
-    @Mapping(target = "lineTotal", expression = "java(orderItem.getPrice().multiply(java.math.BigDecimal.valueOf(orderItem.getQuantity())))")
+    @Mapping(target = "lineTotal", expression = "java(Money.toDecimal(Money.times(orderItem.getPriceCents(), orderItem.getQuantity())))")
     OrderItemDto toDto(OrderItem orderItem);
 }
\ No newline at end of file
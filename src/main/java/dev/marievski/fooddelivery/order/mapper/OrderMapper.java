@@ -1,5 +1,6 @@
 package dev.marievski.fooddelivery.order.mapper;
 
+import dev.marievski.fooddelivery.common.Money;
 import dev.marievski.fooddelivery.order.Order;
 import dev.marievski.fooddelivery.order.OrderItem;
 import dev.marievski.fooddelivery.order.dto.OrderDto;
@@ -9,7 +10,7 @@ import org.mapstruct.Mapping;
 
 import java.util.List;
 
-@Mapper(componentModel = "spring")
+@Mapper(componentModel = "spring", imports = Money.class)
 public interface OrderMapper {
 
     @Mapping(target = "userId", source = "user.id")
@@ -17,7 +18,7 @@ public interface OrderMapper {
     @Mapping(target = "items", source = "items")
     OrderDto toDto(Order order);
 
-    @Mapping(target = "lineTotal", expression = "java(orderItem.getPrice().multiply(java.math.BigDecimal.valueOf(orderItem.getQuantity())))")
+    @Mapping(target = "lineTotal", expression = "java(Money.toDecimal(Money.times(orderItem.getPriceCents(), orderItem.getQuantity())))")
     OrderItemDto toDto(OrderItem orderItem);
 
     List<OrderDto> toDtoList(List<Order> orders);
@@ -0,0 +1,84 @@
+package dev.marievski.fooddelivery.outbox;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
+
+import java.time.Instant;
+
+/**
+ * Запись transactional outbox: событие пишется в той же транзакции, что и изменение состояния,
+ * а доставкой подписчикам занимается OutboxRelay. processedAt == null — ещё не доставлено;
+ * parkedAt != null — отложено после app.outbox.max-attempts неудачных попыток и ждёт разбора.
+ */
+@Entity
+@Table(name = "outbox_events", indexes = {
+        @Index(name = "idx_outbox_events_pending", columnList = "processed_at, parked_at, id")
+})
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_events_seq")
+    // id по одному из общей sequence, без блоков на инстанс: событие, записанное позже (на любом узле),
+    // получает больший id — релей идёт ORDER BY id
+    @SequenceGenerator(name = "outbox_events_seq", sequenceName = "outbox_events_seq", allocationSize = 1)
+    private Long id;
+
+    @Column(nullable = false, length = 30)
+    private String aggregateType;   // ORDER
+
+    @Column(nullable = false)
+    private Long aggregateId;
+
+    @Column(nullable = false, length = 50)
+    private String eventType;       // ORDER_CREATED, ORDER_STATUS_CHANGED, PAYMENT_STATUS_CHANGED
+
+    @Column(nullable = false, length = 4000)
+    private String payload;         // JSON
+
+    @Column(nullable = false)
+    private Instant createdAt = Instant.now();
+
+    @Column(name = "processed_at")
+    private Instant processedAt;
+
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(length = 1000)
+    private String lastError;
+
+    @Column(name = "parked_at")
+    private Instant parkedAt;
+
+    protected OutboxEvent() {}
+
+    public OutboxEvent(String aggregateType, Long aggregateId, String eventType, String payload) {
+        this.aggregateType = aggregateType;
+        this.aggregateId = aggregateId;
+        this.eventType = eventType;
+        this.payload = payload;
+    }
+
+    public Long getId() { return id; }
+    public String getAggregateType() { return aggregateType; }
+    public Long getAggregateId() { return aggregateId; }
+    public String getEventType() { return eventType; }
+    public String getPayload() { return payload; }
+    public Instant getCreatedAt() { return createdAt; }
+
+    public Instant getProcessedAt() { return processedAt; }
+    public void setProcessedAt(Instant processedAt) { this.processedAt = processedAt; }
+
+    public int getAttempts() { return attempts; }
+    public String getLastError() { return lastError; }
+    public Instant getParkedAt() { return parkedAt; }
+
+    /** Неудачная попытка доставки; возвращает число попыток. */
+    public int recordFailure(String error) {
+        this.lastError = error.length() > 1000 ? error.substring(0, 1000) : error;
+        return ++attempts;
+    }
+
+    public void park(Instant now) { this.parkedAt = now; }
+}
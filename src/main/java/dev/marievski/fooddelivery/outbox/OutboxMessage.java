@@ -0,0 +1,19 @@
+package dev.marievski.fooddelivery.outbox;
+
+import java.time.Instant;
+
+/**
+ * Событие в том виде, в котором его получают подписчики (без JPA-сущности).
+ */
+public record OutboxMessage(Long id,
+                            String aggregateType,
+                            Long aggregateId,
+                            String eventType,
+                            String payload,
+                            Instant createdAt) {
+
+    static OutboxMessage of(OutboxEvent e) {
+        return new OutboxMessage(e.getId(), e.getAggregateType(), e.getAggregateId(),
+                e.getEventType(), e.getPayload(), e.getCreatedAt());
+    }
+}
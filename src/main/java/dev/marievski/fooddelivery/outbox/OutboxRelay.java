@@ -0,0 +1,103 @@
+package dev.marievski.fooddelivery.outbox;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Фоновая доставка outbox-событий подписчикам в процессе.
+ * Берёт пачку по порядку id, отдаёт каждому подписчику и помечает доставленной в той же короткой транзакции.
+ * Если подписчик упал на событии заказа — остальные события этого заказа в пачке откладываются до следующего
+ * прохода (порядок внутри агрегата не нарушается), события других заказов идут дальше.
+ * После app.outbox.max-attempts неудач событие откладывается (parked_at, метрика outbox.events.parked) и больше
+ * не держит заказ: следующие события идут дальше, отложенное ждёт разбора — вернуть в очередь можно,
+ * обнулив parked_at и attempts.
+ */
+@Component
+public class OutboxRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+    private static final int MAX_BATCHES_PER_RUN = 10;
+
+    private final OutboxRepository events;
+    private final List<OutboxSubscriber> subscribers;
+    private final TransactionTemplate tx;
+    private final int batchSize;
+    private final Duration retention;
+    private final int maxAttempts;
+    private final Counter parked;
+
+    public OutboxRelay(OutboxRepository events,
+                       List<OutboxSubscriber> subscribers,
+                       TransactionTemplate tx,
+                       MeterRegistry meterRegistry,
+                       @Value("${app.outbox.batch-size:100}") int batchSize,
+                       @Value("${app.outbox.retention:P7D}") Duration retention,
+                       @Value("${app.outbox.max-attempts:20}") int maxAttempts) {
+        this.events = events;
+        this.subscribers = subscribers;
+        this.tx = tx;
+        this.batchSize = batchSize;
+        this.retention = retention;
+        this.maxAttempts = maxAttempts;
+        this.parked = meterRegistry.counter("outbox.events.parked");
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.poll-interval:PT1S}")
+    public void drain() {
+        for (int i = 0; i < MAX_BATCHES_PER_RUN; i++) {
+            Integer delivered = tx.execute(status -> deliverBatch());
+            if (delivered == null || delivered < batchSize) return; // очередь разобрана или есть отложенные
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.purge-interval:PT1H}")
+    public void purgeProcessed() {
+        tx.executeWithoutResult(status -> events.deleteProcessedBefore(Instant.now().minus(retention)));
+    }
+
+    private int deliverBatch() {
+        List<OutboxEvent> batch = events.lockPending(PageRequest.of(0, batchSize));
+        Set<String> blocked = new HashSet<>();
+        Instant now = Instant.now();
+        int delivered = 0;
+
+        for (OutboxEvent event : batch) {
+            String aggregate = event.getAggregateType() + ":" + event.getAggregateId();
+            if (blocked.contains(aggregate)) continue;
+            try {
+                OutboxMessage message = OutboxMessage.of(event);
+                for (OutboxSubscriber subscriber : subscribers) {
+                    subscriber.handle(message);
+                }
+                event.setProcessedAt(now);
+                delivered++;
+            } catch (RuntimeException e) {
+                int attempts = event.recordFailure(e.toString());
+                if (attempts >= maxAttempts) {
+                    event.park(now);
+                    parked.increment();
+                    log.error("Outbox event {} ({} {}) parked after {} attempts: {}",
+                            event.getId(), event.getEventType(), aggregate, attempts, e.toString());
+                } else {
+                    log.warn("Outbox event {} ({} {}) delivery failed (attempt {}), will retry: {}",
+                            event.getId(), event.getEventType(), aggregate, attempts, e.toString());
+                }
+                blocked.add(aggregate); // следующие события заказа — не раньше следующего прохода
+            }
+        }
+        return delivered;
+    }
+}
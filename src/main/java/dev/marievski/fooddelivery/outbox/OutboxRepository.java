@@ -0,0 +1,29 @@
+package dev.marievski.fooddelivery.outbox;
+
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface OutboxRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * Очередная пачка недоставленных событий по порядку записи.
+     * Порядок id внутри заказа совпадает с порядком записи (sequence без блоков на инстанс, см. OutboxEvent.id),
+     * FOR UPDATE сериализует релеи на разных нодах — так сохраняется порядок событий по заказу.
+     * Отложенные (parked) не берутся.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT e FROM OutboxEvent e WHERE e.processedAt IS NULL AND e.parkedAt IS NULL ORDER BY e.id")
+    List<OutboxEvent> lockPending(Pageable limit);
+
+    @Modifying
+    @Query("DELETE FROM OutboxEvent e WHERE e.processedAt < :before")
+    int deleteProcessedBefore(@Param("before") Instant before);
+}
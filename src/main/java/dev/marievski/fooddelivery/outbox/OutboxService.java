@@ -0,0 +1,38 @@
+package dev.marievski.fooddelivery.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Map;
+
+/**
+ * Запись событий в outbox. Только внутри уже открытой транзакции бизнес-операции —
+ * событие и изменение состояния коммитятся (или откатываются) вместе.
+ */
+@Service
+public class OutboxService {
+
+    /** Тип агрегата для событий заказа и его оплат (порядок доставки — по id заказа). */
+    public static final String ORDER = "ORDER";
+
+    private final OutboxRepository events;
+    private final ObjectMapper objectMapper;
+
+    public OutboxService(OutboxRepository events, ObjectMapper objectMapper) {
+        this.events = events;
+        this.objectMapper = objectMapper;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(String aggregateType, Long aggregateId, String eventType, Map<String, ?> payload) {
+        try {
+            String json = objectMapper.writeValueAsString(payload);
+            events.save(new OutboxEvent(aggregateType, aggregateId, eventType, json));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize outbox payload", e);
+        }
+    }
+}
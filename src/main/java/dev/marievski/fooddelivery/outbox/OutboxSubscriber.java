@@ -0,0 +1,13 @@
+package dev.marievski.fooddelivery.outbox;
+
+/**
+ * Подписчик outbox-событий (уведомления, экран кухни и т.п.). Любой Spring-бин с этим интерфейсом
+ * подхватывается OutboxRelay автоматически.
+ * <p>
+ * Доставка at-least-once: после сбоя событие придёт повторно, поэтому обработка должна быть идемпотентной
+ * (например, по {@link OutboxMessage#id()}). События одного агрегата приходят строго по порядку.
+ */
+public interface OutboxSubscriber {
+
+    void handle(OutboxMessage message);
+}
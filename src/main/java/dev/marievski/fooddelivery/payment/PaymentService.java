@@ -1,11 +1,13 @@
 package dev.marievski.fooddelivery.payment;
 
+import dev.marievski.fooddelivery.archive.OrderArchiveService;
 import dev.marievski.fooddelivery.common.ApiBadRequestException;
 import dev.marievski.fooddelivery.common.ApiConflictException;
 import dev.marievski.fooddelivery.order.Order;
 import dev.marievski.fooddelivery.order.OrderRepository;
 import dev.marievski.fooddelivery.order.OrderService;
 import dev.marievski.fooddelivery.order.OrderStatus;
+import dev.marievski.fooddelivery.outbox.OutboxService;
 import dev.marievski.fooddelivery.payment.dto.PaymentCreateRequest;
 import dev.marievski.fooddelivery.payment.dto.PaymentResponse;
 import dev.marievski.fooddelivery.payment.mapper.PaymentMapper;
@@ -15,6 +17,7 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class PaymentService {
@@ -23,13 +26,18 @@ public class PaymentService {
     private final OrderRepository orders;
     private final OrderService orderService;
     private final PaymentMapper paymentMapper;
+    private final OutboxService outbox;
+    private final OrderArchiveService archive;
 
     public PaymentService(PaymentRepository payments, OrderRepository orders,
-                          OrderService orderService, PaymentMapper paymentMapper) {
+                          OrderService orderService, PaymentMapper paymentMapper, OutboxService outbox,
+                          OrderArchiveService archive) {
         this.payments = payments;
         this.orders = orders;
         this.orderService = orderService;
         this.paymentMapper = paymentMapper;
+        this.outbox = outbox;
+        this.archive = archive;
     }
 
     @Transactional
@@ -37,9 +45,10 @@ public class PaymentService {
         validateCreateRequest(req);
 
         if (req.getExternalId() != null) {
-            payments.findByExternalId(req.getExternalId()).ifPresent(p -> {
+            if (payments.findByExternalId(req.getExternalId()).isPresent()
+                    || archive.paymentExternalIdExists(req.getExternalId())) {
                 throw new ApiConflictException("DUPLICATE_EXTERNAL_ID", "Payment with this externalId already exists");
-            });
+            }
         }
 
         Order order = orders.findById(req.getOrderId())
@@ -69,6 +78,9 @@ public class PaymentService {
 
     public List<PaymentResponse> findByOrderId(Long orderId) {
         List<Payment> paymentList = payments.findByOrderId(orderId);
+        if (paymentList.isEmpty()) {
+            return archive.findPayments(orderId); // заказ мог уехать в архив вместе с оплатами
+        }
         return paymentMapper.toDtoList(paymentList);
     }
 
@@ -105,6 +117,12 @@ public class PaymentService {
 
     private void applyPaymentStatusEffects(Payment payment) {
         Order order = payment.getOrder();
+        // событие оплаты идёт в поток заказа — подписчики видят его по порядку с переходами заказа
+        outbox.append(OutboxService.ORDER, order.getId(), "PAYMENT_STATUS_CHANGED", Map.of(
+                "orderId", order.getId(),
+                "paymentId", payment.getId(),
+                "status", payment.getStatus(),
+                "amount", payment.getAmount()));
         if (payment.getStatus() == PaymentStatus.SUCCESS) {
             if (order.getStatus() == OrderStatus.NEW) {
                 orderService.changeStatus(order.getId(), OrderStatus.CONFIRMED);
@@ -0,0 +1,106 @@
+package dev.marievski.fooddelivery.restaurant;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.marievski.fooddelivery.common.BoundedCache;
+import dev.marievski.fooddelivery.restaurant.mapper.MenuItemMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Read-through кэш готового меню ресторана (GET /restaurants/{id}/menu): уже сериализованный JSON
+ * (и gzip от app.menu.cache.gzip-min-bytes) вместе с версией меню ресторана, из которой строится ETag.
+ * Ограничение — по числу ресторанов и по суммарному размеру байтов. RestaurantService сбрасывает
+ * ровно затронутый ресторан после коммита правки; TTL — страховка от правок с других инстансов.
+ * Метрики — cache.*{cache=menu}.
+ */
+@Component
+public class MenuCache {
+
+    private final RestaurantRepository restaurants;
+    private final MenuItemRepository items;
+    private final MenuItemMapper mapper;
+    private final ObjectMapper objectMapper;
+    private final int gzipMinBytes;
+    private final BoundedCache<Long, RenderedMenu> cache;
+    // restaurantId -> число сбросов; запись на каждый когда-либо правленный ресторан — это немного
+    private final ConcurrentHashMap<Long, Long> invalidations = new ConcurrentHashMap<>();
+
+    public MenuCache(RestaurantRepository restaurants,
+                     MenuItemRepository items,
+                     MenuItemMapper mapper,
+                     ObjectMapper objectMapper,
+                     MeterRegistry meterRegistry,
+                     @Value("${app.menu.cache.max-restaurants:10000}") int maxRestaurants,
+                     @Value("${app.menu.cache.max-bytes:67108864}") long maxBytes,
+                     @Value("${app.menu.cache.gzip-min-bytes:1024}") int gzipMinBytes,
+                     @Value("${app.menu.cache.ttl:PT1H}") Duration ttl) {
+        this.restaurants = restaurants;
+        this.items = items;
+        this.mapper = mapper;
+        this.objectMapper = objectMapper;
+        this.gzipMinBytes = gzipMinBytes;
+        this.cache = new BoundedCache<Long, RenderedMenu>(maxRestaurants, maxBytes, RenderedMenu::weight, ttl)
+                .bindMetrics(meterRegistry, "menu");
+    }
+
+    public RenderedMenu menuOf(Long restaurantId) {
+        long seen = invalidations.getOrDefault(restaurantId, 0L);
+        RenderedMenu menu = cache.get(restaurantId, this::render);
+        // правка этого ресторана закоммитилась, пока грузили, — загруженное могло уже устареть, в кэше не оставляем;
+        // правки других ресторанов загрузку не трогают
+        if (invalidations.getOrDefault(restaurantId, 0L) != seen) cache.invalidate(restaurantId);
+        return menu;
+    }
+
+    /** Сбросить меню ресторана после коммита текущей транзакции (сразу — если её нет). */
+    public void invalidate(Long restaurantId) {
+        Runnable action = () -> {
+            invalidations.merge(restaurantId, 1L, Long::sum);
+            cache.invalidate(restaurantId);
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private RenderedMenu render(Long restaurantId) {
+        // версия — до блюд: при гонке с правкой получим новое меню под старым ETag (клиент просто перекачает),
+        // но не старое меню под новым
+        long version = restaurants.findMenuVersionById(restaurantId).orElse(0L);
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(
+                    mapper.toDtoList(items.findByRestaurantIdOrderByIdAsc(restaurantId)));
+            return new RenderedMenu(version, json, json.length >= gzipMinBytes ? gzip(json) : null);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize menu", e);
+        }
+    }
+
+    private static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4 + 64);
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,292 @@
+package dev.marievski.fooddelivery.restaurant;
+
+import dev.marievski.fooddelivery.common.LongIntHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+
+/**
+ * Каталог цен в памяти: по id вариации — цена в копейках, время готовки, доступность, ресторан и подпись;
+ * по id ресторана — открыт ли он. Всё, что нужно корзине и оформлению для итогов и правил,
+ * без сущностей, ленивых прокси и запросов к БД.
+ * <p>
+ * Данные — в параллельных примитивных массивах, индекс по id — {@link LongIntHashMap}. Чтение — оптимистичное
+ * через StampedLock (без блокировок и аллокаций, при гонке с записью — повтор под read-локом).
+ * <p>
+ * Загружается целиком при первом обращении. RestaurantService сообщает об изменениях меню, они применяются
+ * после коммита. Изменения с других инстансов подтягиваются полной перезагрузкой раз в
+ * app.menu.catalog.refresh-interval (новые вариации — сразу, через {@link #loadMissing}); правки, применённые
+ * во время перезагрузки, повторяются поверх нового снимка.
+ */
+@Component
+public class MenuCatalog {
+
+    private static final Logger log = LoggerFactory.getLogger(MenuCatalog.class);
+
+    private static final byte PRESENT = 1;
+    private static final byte AVAILABLE = 2;
+
+    private static final int PRICE = 0;
+    private static final int MINUTES = 1;
+    private static final int RESTAURANT = 2;
+    private static final int FLAGS = 3;
+
+    private final MenuVariationRepository variations;
+    private final StampedLock lock = new StampedLock();
+    private volatile boolean loaded;
+
+    // --- под lock ---
+    private Data data = new Data(16);
+    private List<Consumer<Data>> sinceReloadStart; // правки во время перезагрузки; null — перезагрузки нет
+
+    /** Одно состояние каталога; перезагрузка строит новое и подменяет ссылку. */
+    private static final class Data {
+        final LongIntHashMap slots;            // variationId -> индекс в массивах
+        final LongIntHashMap restaurantOpen;   // restaurantId -> 1 открыт / 0 закрыт
+        long[] priceCents;
+        int[] cookingMinutes;
+        long[] restaurantIds;
+        byte[] flags;
+        String[] labels;
+        int count;
+
+        Data(int capacity) {
+            slots = new LongIntHashMap(capacity, -1);
+            restaurantOpen = new LongIntHashMap(16, -1);
+            priceCents = new long[capacity];
+            cookingMinutes = new int[capacity];
+            restaurantIds = new long[capacity];
+            flags = new byte[capacity];
+            labels = new String[capacity];
+        }
+
+        void put(MenuCatalogRow row) {
+            int slot = slots.get(row.variationId());
+            if (slot < 0) {
+                if (count == flags.length) grow();
+                slot = count++;
+                slots.put(row.variationId(), slot);
+            }
+            priceCents[slot] = row.priceCents();
+            cookingMinutes[slot] = row.cookingMinutes();
+            restaurantIds[slot] = row.restaurantId();
+            labels[slot] = row.label();
+            flags[slot] = (byte) (PRESENT | (row.available() ? AVAILABLE : 0));
+            restaurantOpen.put(row.restaurantId(), row.restaurantOpen() ? 1 : 0);
+        }
+
+        private void grow() {
+            int capacity = flags.length * 2;
+            priceCents = Arrays.copyOf(priceCents, capacity);
+            cookingMinutes = Arrays.copyOf(cookingMinutes, capacity);
+            restaurantIds = Arrays.copyOf(restaurantIds, capacity);
+            flags = Arrays.copyOf(flags, capacity);
+            labels = Arrays.copyOf(labels, capacity);
+        }
+
+        /** Индекс присутствующей вариации или -1. */
+        int slotOf(long variationId) {
+            int slot = slots.get(variationId);
+            return slot >= 0 && (flags[slot] & PRESENT) != 0 ? slot : -1;
+        }
+
+        long field(int slot, int field) {
+            return switch (field) {
+                case PRICE -> priceCents[slot];
+                case MINUTES -> cookingMinutes[slot];
+                case RESTAURANT -> restaurantIds[slot];
+                default -> flags[slot];
+            };
+        }
+    }
+
+    public MenuCatalog(MenuVariationRepository variations) {
+        this.variations = variations;
+    }
+
+    public boolean exists(long variationId) {
+        return read(variationId, FLAGS, 0) != 0;
+    }
+
+    public boolean isAvailable(long variationId) {
+        return (read(variationId, FLAGS, 0) & AVAILABLE) != 0;
+    }
+
+    /** Цена в копейках или -1, если вариации нет в каталоге. */
+    public long priceCents(long variationId) {
+        return read(variationId, PRICE, -1);
+    }
+
+    public int cookingMinutes(long variationId) {
+        return (int) read(variationId, MINUTES, -1);
+    }
+
+    /** Ресторан вариации или 0, если её нет в каталоге. */
+    public long restaurantId(long variationId) {
+        return read(variationId, RESTAURANT, 0);
+    }
+
+    public String label(long variationId) {
+        ensureLoaded();
+        long stamp = lock.tryOptimisticRead();
+        try {
+            Data d = data;
+            int slot = d.slotOf(variationId);
+            String label = slot < 0 ? null : d.labels[slot];
+            if (lock.validate(stamp)) return label;
+        } catch (RuntimeException torn) {
+            // рваное состояние во время записи — перечитаем под локом
+        }
+        stamp = lock.readLock();
+        try {
+            int slot = data.slotOf(variationId);
+            return slot < 0 ? null : data.labels[slot];
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public boolean isRestaurantOpen(long restaurantId) {
+        ensureLoaded();
+        long stamp = lock.tryOptimisticRead();
+        try {
+            int open = data.restaurantOpen.get(restaurantId);
+            if (lock.validate(stamp)) return open == 1;
+        } catch (RuntimeException torn) {
+            // см. label()
+        }
+        stamp = lock.readLock();
+        try {
+            return data.restaurantOpen.get(restaurantId) == 1;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private long read(long variationId, int field, long missing) {
+        ensureLoaded();
+        long stamp = lock.tryOptimisticRead();
+        try {
+            Data d = data;
+            int slot = d.slotOf(variationId);
+            long value = slot < 0 ? missing : d.field(slot, field);
+            if (lock.validate(stamp)) return value;
+        } catch (RuntimeException torn) {
+            // массивы могли подмениться посреди чтения (рост) — перечитаем под локом
+        }
+        stamp = lock.readLock();
+        try {
+            int slot = data.slotOf(variationId);
+            return slot < 0 ? missing : data.field(slot, field);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // --- изменения меню (вызываются из транзакций RestaurantService, применяются после коммита) ---
+
+    public void variationsSaved(List<MenuCatalogRow> rows) {
+        afterCommit(() -> write(d -> rows.forEach(d::put)));
+    }
+
+    public void availabilityChanged(long variationId, boolean available) {
+        afterCommit(() -> write(d -> {
+            int slot = d.slotOf(variationId);
+            if (slot >= 0) d.flags[slot] = (byte) (PRESENT | (available ? AVAILABLE : 0));
+        }));
+    }
+
+    public void variationsRemoved(Collection<Long> variationIds) {
+        afterCommit(() -> write(d -> {
+            for (Long id : variationIds) {
+                int slot = d.slotOf(id);
+                if (slot >= 0) d.flags[slot] = 0;
+            }
+        }));
+    }
+
+    public void restaurantOpenChanged(long restaurantId, boolean open) {
+        afterCommit(() -> write(d -> d.restaurantOpen.put(restaurantId, open ? 1 : 0)));
+    }
+
+    /** Догрузить вариации, которых нет в каталоге (созданы на другом инстансе). */
+    public void loadMissing(Collection<Long> variationIds) {
+        List<MenuCatalogRow> rows = variations.findCatalogRowsByIdIn(variationIds);
+        if (!rows.isEmpty()) write(d -> rows.forEach(d::put));
+    }
+
+    @Scheduled(fixedDelayString = "${app.menu.catalog.refresh-interval:PT1M}",
+            initialDelayString = "${app.menu.catalog.refresh-interval:PT1M}")
+    public synchronized void reload() {
+        long stamp = lock.writeLock();
+        try {
+            sinceReloadStart = new ArrayList<>();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        Data fresh = null;
+        int size = 0;
+        try {
+            List<MenuCatalogRow> rows = variations.findCatalogRows();
+            size = rows.size();
+            fresh = new Data(Math.max(16, size + size / 4));
+            rows.forEach(fresh::put);
+        } finally {
+            stamp = lock.writeLock();
+            try {
+                if (fresh != null) {
+                    // правка, применённая после начала чтения, могла в него не попасть, и старый снимок
+                    // затёр бы её до следующей перезагрузки; все правки — "выставить", повтор безвреден
+                    for (Consumer<Data> change : sinceReloadStart) change.accept(fresh);
+                    data = fresh;
+                }
+                sinceReloadStart = null;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+        if (!loaded) log.info("Menu catalog loaded: {} variations", size);
+        loaded = true;
+    }
+
+    private void ensureLoaded() {
+        if (loaded) return;
+        synchronized (this) {
+            if (!loaded) reload();
+        }
+    }
+
+    private void write(Consumer<Data> change) {
+        ensureLoaded();
+        long stamp = lock.writeLock();
+        try {
+            change.accept(data);
+            if (sinceReloadStart != null) sinceReloadStart.add(change);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,11 @@
+package dev.marievski.fooddelivery.restaurant;
+
+/** Строка загрузки {@link MenuCatalog}: всё, что нужно для цен, ETA и правил корзины по одной вариации. */
+public record MenuCatalogRow(Long variationId,
+                             Long restaurantId,
+                             boolean restaurantOpen,
+                             long priceCents,
+                             int cookingMinutes,
+                             boolean available,
+                             String label) {
+}
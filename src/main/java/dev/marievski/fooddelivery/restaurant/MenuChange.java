@@ -0,0 +1,56 @@
+package dev.marievski.fooddelivery.restaurant;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * Запись журнала изменений меню: одна на каждый подъём версии меню ресторана, seq — новая версия.
+ * Изменилось блюдо целиком (variationId == null) или одна вариация; deleted — блюдо удалено.
+ */
+@Entity
+@Table(name = "menu_changes",
+        uniqueConstraints = @UniqueConstraint(name = "uk_menu_changes_restaurant_seq", columnNames = {"restaurant_id", "seq"}),
+        indexes = @Index(name = "idx_menu_changes_created", columnList = "created_at"))
+public class MenuChange {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "menu_changes_seq")
+    @SequenceGenerator(name = "menu_changes_seq", sequenceName = "menu_changes_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "restaurant_id", nullable = false)
+    private Long restaurantId;
+
+    @Column(nullable = false)
+    private long seq;
+
+    @Column(nullable = false)
+    private Long itemId;
+
+    private Long variationId;
+
+    @Column(nullable = false)
+    private boolean deleted;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt = Instant.now();
+
+    protected MenuChange() {}
+
+    public MenuChange(Long restaurantId, long seq, Long itemId, Long variationId, boolean deleted) {
+        this.restaurantId = restaurantId;
+        this.seq = seq;
+        this.itemId = itemId;
+        this.variationId = variationId;
+        this.deleted = deleted;
+    }
+
+    public Long getId() { return id; }
+    public Long getRestaurantId() { return restaurantId; }
+    public long getSeq() { return seq; }
+    public Long getItemId() { return itemId; }
+    public Long getVariationId() { return variationId; }
+    public boolean isDeleted() { return deleted; }
+    public Instant getCreatedAt() { return createdAt; }
+}
@@ -0,0 +1,120 @@
+package dev.marievski.fooddelivery.restaurant;
+
+import dev.marievski.fooddelivery.common.ApiBadRequestException;
+import dev.marievski.fooddelivery.common.exception.NotFoundException;
+import dev.marievski.fooddelivery.restaurant.dto.MenuChangesDto;
+import dev.marievski.fooddelivery.restaurant.mapper.MenuItemMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Журнал изменений меню для дельта-синхронизации (GET /restaurants/{id}/menu/changes?since=).
+ * <p>
+ * Каждая правка меню поднимает версию ресторана и пишет одну запись с seq = новая версия — в той же транзакции,
+ * поэтому seq ресторана идут подряд без пропусков. Пропуск в журнале значит, что его начало уже сжато
+ * (записи старше app.menu.changes.retention удаляются) — тогда клиенту отвечаем resync.
+ */
+@Service
+public class MenuChangeLog {
+
+    private final MenuChangeRepository changes;
+    private final RestaurantRepository restaurants;
+    private final MenuItemRepository items;
+    private final MenuVariationRepository variations;
+    private final MenuItemMapper mapper;
+    private final int maxChanges;
+    private final Duration retention;
+    private final TransactionTemplate tx;
+
+    public MenuChangeLog(MenuChangeRepository changes,
+                         RestaurantRepository restaurants,
+                         MenuItemRepository items,
+                         MenuVariationRepository variations,
+                         MenuItemMapper mapper,
+                         TransactionTemplate tx,
+                         @Value("${app.menu.changes.max-changes:500}") int maxChanges,
+                         @Value("${app.menu.changes.retention:P7D}") Duration retention) {
+        this.changes = changes;
+        this.restaurants = restaurants;
+        this.items = items;
+        this.variations = variations;
+        this.mapper = mapper;
+        this.maxChanges = maxChanges;
+        this.retention = retention;
+        this.tx = tx;
+    }
+
+    /** Поднять версию меню и записать, что изменилось (variationId == null — блюдо целиком). */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(Long restaurantId, Long itemId, Long variationId, boolean deleted) {
+        restaurants.bumpMenuVersion(restaurantId);
+        // строка ресторана заблокирована нашим UPDATE до коммита — версия не может убежать
+        long seq = restaurants.findMenuVersionById(restaurantId).orElseThrow();
+        changes.save(new MenuChange(restaurantId, seq, itemId, variationId, deleted));
+    }
+
+    @Transactional(readOnly = true)
+    public MenuChangesDto changesSince(Long restaurantId, long since) {
+        if (since < 0) {
+            throw new ApiBadRequestException("BAD_SINCE", "since должен быть неотрицательным");
+        }
+        // версия — до журнала: все записи до неё уже закоммичены
+        long version = restaurants.findMenuVersionById(restaurantId)
+                .orElseThrow(() -> new NotFoundException("Ресторан не найден"));
+        MenuChangesDto dto = new MenuChangesDto();
+        dto.setVersion(version);
+        if (since == version) return dto;
+        if (since > version || version - since > maxChanges) return resync(dto);
+
+        List<MenuChange> log = changes.findRange(restaurantId, since, version);
+        if (log.size() != version - since) return resync(dto); // на каждую версию одна запись — часть уже сжата
+
+        // схлопываем по порядку: последнее изменение блюда побеждает
+        Set<Long> itemIds = new LinkedHashSet<>();
+        Set<Long> deleted = new LinkedHashSet<>();
+        Map<Long, Long> variationItems = new LinkedHashMap<>();
+        for (MenuChange c : log) {
+            if (c.isDeleted()) {
+                itemIds.remove(c.getItemId());
+                deleted.add(c.getItemId());
+            } else if (c.getVariationId() == null) {
+                itemIds.add(c.getItemId());
+                deleted.remove(c.getItemId());
+            } else {
+                variationItems.put(c.getVariationId(), c.getItemId());
+            }
+        }
+        variationItems.values().removeIf(itemId -> itemIds.contains(itemId) || deleted.contains(itemId));
+
+        List<MenuItem> current = itemIds.isEmpty() ? List.of() : items.findByIdInOrderByIdAsc(itemIds);
+        for (MenuItem item : current) itemIds.remove(item.getId());
+        deleted.addAll(itemIds); // уже удалены после version — клиент узнает об этом и сейчас
+        dto.setItems(mapper.toDtoList(current));
+        dto.setVariations(variationItems.isEmpty() ? List.of()
+                : mapper.toVariationDtoList(variations.findAllById(variationItems.keySet())));
+        dto.setDeletedItemIds(List.copyOf(deleted));
+        return dto;
+    }
+
+    @Scheduled(fixedDelayString = "${app.menu.changes.compact-interval:PT1H}")
+    public void compact() {
+        tx.executeWithoutResult(status -> changes.deleteCreatedBefore(Instant.now().minus(retention)));
+    }
+
+    private static MenuChangesDto resync(MenuChangesDto dto) {
+        dto.setResync(true);
+        return dto;
+    }
+}
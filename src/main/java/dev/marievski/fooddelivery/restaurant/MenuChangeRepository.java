@@ -0,0 +1,21 @@
+package dev.marievski.fooddelivery.restaurant;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface MenuChangeRepository extends JpaRepository<MenuChange, Long> {
+
+    @Query("SELECT c FROM MenuChange c WHERE c.restaurantId = :restaurantId AND c.seq > :since AND c.seq <= :upTo ORDER BY c.seq")
+    List<MenuChange> findRange(@Param("restaurantId") Long restaurantId,
+                               @Param("since") long since,
+                               @Param("upTo") long upTo);
+
+    @Modifying
+    @Query("DELETE FROM MenuChange c WHERE c.createdAt < :before")
+    int deleteCreatedBefore(@Param("before") Instant before);
+}
@@ -3,10 +3,20 @@ package dev.marievski.fooddelivery.restaurant;
 
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import java.util.Collection;
 import java.util.List;
 
 
 public interface MenuItemRepository extends JpaRepository<MenuItem, Long> {
     @EntityGraph(attributePaths = "variations")
     List<MenuItem> findByRestaurantIdOrderByIdAsc(Long restaurantId);
+
+    @EntityGraph(attributePaths = "variations")
+    List<MenuItem> findByIdInOrderByIdAsc(Collection<Long> ids);
+
+    /** Все активные блюда с вариациями — для построения поискового индекса. */
+    @EntityGraph(attributePaths = "variations")
+    @Query("SELECT i FROM MenuItem i WHERE i.active = true")
+    List<MenuItem> findAllActiveWithVariations();
 }
\ No newline at end of file
@@ -1,5 +1,7 @@
 package dev.marievski.fooddelivery.restaurant;
 
+import dev.marievski.fooddelivery.common.Money;
+import dev.marievski.fooddelivery.common.MoneyConverter;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
@@ -26,8 +28,9 @@ public class MenuVariation {
     @Column(nullable = false)
     private String label;           // "Small", "Medium", "Large" и т.п.
 
-    @Column(nullable = false, precision = 12, scale = 2)
-    private BigDecimal price = BigDecimal.ZERO;
+    @Convert(converter = MoneyConverter.class)
+    @Column(name = "price", nullable = false, precision = 12, scale = 2)
+    private long priceCents; // в копейках, см. Money
 
     @Min(1)
     @Column(nullable = false)
@@ -45,8 +48,9 @@ public class MenuVariation {
     public String getLabel() { return label; }
     public void setLabel(String label) { this.label = label; }
 
-    public BigDecimal getPrice() { return price; }
-    public void setPrice(BigDecimal price) { this.price = price; }
+    public BigDecimal getPrice() { return Money.toDecimal(priceCents); }
+    public void setPrice(BigDecimal price) { this.priceCents = Money.ofDecimal(price); }
+    public long getPriceCents() { return priceCents; }
 
     public int getCookingMinutes() { return cookingMinutes; }
     public void setCookingMinutes(int cookingMinutes) { this.cookingMinutes = cookingMinutes; }
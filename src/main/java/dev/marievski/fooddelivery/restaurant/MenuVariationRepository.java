@@ -1,10 +1,25 @@
 package dev.marievski.fooddelivery.restaurant;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface MenuVariationRepository extends JpaRepository<MenuVariation, Long> {
 
     List<MenuVariation> findByItemIdOrderByIdAsc(Long itemId);
+
+    String CATALOG_ROW = """
+            SELECT new dev.marievski.fooddelivery.restaurant.MenuCatalogRow(
+                v.id, r.id, r.open, v.priceCents, v.cookingMinutes, v.available, v.label)
+            FROM MenuVariation v JOIN v.item i JOIN i.restaurant r""";
+
+    /** Весь каталог цен плоскими строками — для {@link MenuCatalog}. */
+    @Query(CATALOG_ROW)
+    List<MenuCatalogRow> findCatalogRows();
+
+    @Query(CATALOG_ROW + " WHERE v.id IN :ids")
+    List<MenuCatalogRow> findCatalogRowsByIdIn(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,18 @@
+package dev.marievski.fooddelivery.restaurant;
+
+/**
+ * Готовый ответ GET /restaurants/{id}/menu: JSON-байты (и gzip, если он того стоит) для версии меню.
+ *
+ * @param gzip null — отдавать без сжатия
+ */
+public record RenderedMenu(long version, byte[] json, byte[] gzip) {
+
+    /** Слабый ETag: байты gzip- и обычного ответа разные, а содержимое одно. */
+    public String etag() {
+        return "W/\"" + version + "\"";
+    }
+
+    int weight() {
+        return json.length + (gzip != null ? gzip.length : 0);
+    }
+}
@@ -3,13 +3,19 @@ package dev.marievski.fooddelivery.restaurant;
 import dev.marievski.fooddelivery.common.Cuisine;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
+import org.hibernate.annotations.ColumnDefault;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 
 
 @Entity
-@Table(name = "restaurants")
+@Table(name = "restaurants", indexes = {
+        // keyset-порядок списка (rating desc, id) — отдельно и после самых частых фильтров
+        @Index(name = "idx_restaurants_rating_id", columnList = "rating DESC, id"),
+        @Index(name = "idx_restaurants_open_rating_id", columnList = "open, rating DESC, id"),
+        @Index(name = "idx_restaurants_cuisine_rating_id", columnList = "cuisine, rating DESC, id")
+})
 public class Restaurant {
 
     @Id
@@ -33,6 +39,15 @@ public class Restaurant {
     @Column(nullable = false)
     private Instant createdAt = Instant.now();
 
+    /**
+     * Растёт при любом изменении меню (блюда, вариации, доступность) — штамп для котировок корзины.
+     * Пишется только RestaurantRepository.bumpMenuVersion: полный UPDATE сущности (update/close) иначе вернул бы
+     * версию, прочитанную до чужой правки меню, и следующая запись журнала упёрлась бы в существующий seq.
+     */
+    @ColumnDefault("0")
+    @Column(nullable = false, insertable = false, updatable = false)
+    private long menuVersion;
+
     @OneToMany(mappedBy = "restaurant", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     private List<MenuItem> menu = new ArrayList<>();
 
@@ -53,5 +68,7 @@ public class Restaurant {
 
     public Instant getCreatedAt() { return createdAt; }
 
+    public long getMenuVersion() { return menuVersion; }
+
     public List<MenuItem> getMenu() { return menu; }
 }
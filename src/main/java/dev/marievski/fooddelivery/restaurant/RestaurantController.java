@@ -5,11 +5,14 @@ import dev.marievski.fooddelivery.restaurant.dto.*;
 import dev.marievski.fooddelivery.restaurant.mapper.MenuItemMapper;
 import dev.marievski.fooddelivery.restaurant.mapper.RestaurantMapper;
 import jakarta.validation.Valid;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
+import java.util.Set;
 
 @RestController
 public class RestaurantController {
@@ -33,13 +36,18 @@ public class RestaurantController {
         return restaurantMapper.toDto(service.create(restaurant));
     }
 
+    /** Рестораны по рейтингу (лучшие сначала) с фильтрами; cuisine можно повторять, name — префикс названия. */
     @GetMapping("/restaurants")
-    public Page<RestaurantDto> listRestaurants(@RequestParam(required = false) Cuisine cuisine,
-                                               @RequestParam(required = false) Double minRating,
-                                               @RequestParam(defaultValue = "0") int page,
-                                               @RequestParam(defaultValue = "20") int size) {
-        return service.list(cuisine, minRating, PageRequest.of(page, size))
-                .map(restaurantMapper::toDto);
+    public RestaurantPageDto listRestaurants(@RequestParam(required = false) Boolean open,
+                                             @RequestParam(required = false) Set<Cuisine> cuisine,
+                                             @RequestParam(required = false) Double minRating,
+                                             @RequestParam(required = false) String name,
+                                             @RequestParam(required = false) String cursor,
+                                             @RequestParam(defaultValue = "20") int limit) {
+        RestaurantService.RestaurantSlice slice =
+                service.page(new RestaurantFilter(open, cuisine, minRating, name), cursor, limit);
+        return new RestaurantPageDto(slice.restaurants().stream().map(restaurantMapper::toDto).toList(),
+                slice.nextCursor());
     }
 
     @GetMapping("/restaurants/{id}")
@@ -76,9 +84,32 @@ public class RestaurantController {
         return menuItemMapper.toDto(saved);
     }
 
+    /**
+     * Меню отдаётся готовыми байтами из кэша (без маппинга и Jackson), с ETag по версии меню:
+     * If-None-Match с актуальной версией — 304 без тела. Gzip — если клиент его принимает и меню крупное.
+     */
     @GetMapping("/restaurants/{id}/menu")
-    public List<MenuItemDto> menu(@PathVariable Long id) {
-        return menuItemMapper.toDtoList(service.menuOf(id));
+    public ResponseEntity<byte[]> menu(@PathVariable Long id,
+                                       @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                                       WebRequest request) {
+        RenderedMenu menu = service.menuOf(id);
+        if (request.checkNotModified(menu.etag())) {
+            return null; // 304 и ETag уже выставлены
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(menu.etag())
+                .contentType(MediaType.APPLICATION_JSON)
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (menu.gzip() != null && acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(menu.gzip());
+        }
+        return response.body(menu.json());
+    }
+
+    /** Дельта меню после версии since (версия — из ETag полного меню или прошлого ответа). */
+    @GetMapping("/restaurants/{id}/menu/changes")
+    public MenuChangesDto menuChanges(@PathVariable Long id, @RequestParam long since) {
+        return service.menuChangesSince(id, since);
     }
 
     @PutMapping("/menu/{id}")
@@ -0,0 +1,8 @@
+package dev.marievski.fooddelivery.restaurant;
+
+import dev.marievski.fooddelivery.common.Cuisine;
+
+import java.util.Set;
+
+/** Фильтры списка ресторанов; null (или пустой набор) — без ограничения. */
+public record RestaurantFilter(Boolean open, Set<Cuisine> cuisines, Double minRating, String namePrefix) {}
@@ -1,18 +1,23 @@
 package dev.marievski.fooddelivery.restaurant;
 
-import dev.marievski.fooddelivery.common.Cuisine;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
 
 /**
- * Репозиторий ресторанов. Набор методов под разные комбинации фильтров.
+ * Репозиторий ресторанов. Списки с фильтрами — через Specification (см. RestaurantSpecifications).
  */
-public interface RestaurantRepository extends JpaRepository<Restaurant, Long> {
-
-    Page<Restaurant> findByCuisine(Cuisine cuisine, Pageable pageable);
+public interface RestaurantRepository extends JpaRepository<Restaurant, Long>, JpaSpecificationExecutor<Restaurant> {
 
-    Page<Restaurant> findByRatingGreaterThanEqual(double rating, Pageable pageable);
+    @Query("SELECT r.menuVersion FROM Restaurant r WHERE r.id = :id")
+    Optional<Long> findMenuVersionById(@Param("id") Long id);
 
-    Page<Restaurant> findByCuisineAndRatingGreaterThanEqual(Cuisine cuisine, double rating, Pageable pageable);
+    /** Атомарный инкремент версии меню (без чтения ресторана и без потерянных инкрементов). */
+    @Modifying
+    @Query("UPDATE Restaurant r SET r.menuVersion = r.menuVersion + 1 WHERE r.id = :id")
+    int bumpMenuVersion(@Param("id") Long id);
 }
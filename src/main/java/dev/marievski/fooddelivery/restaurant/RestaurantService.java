@@ -1,31 +1,50 @@
 package dev.marievski.fooddelivery.restaurant;
 
-import dev.marievski.fooddelivery.common.Cuisine;
+import dev.marievski.fooddelivery.common.ApiBadRequestException;
+import dev.marievski.fooddelivery.common.CursorCodec;
 import dev.marievski.fooddelivery.common.exception.NotFoundException;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import dev.marievski.fooddelivery.restaurant.dto.MenuChangesDto;
+import dev.marievski.fooddelivery.search.RestaurantSearch;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.List;
 
 @Service
 public class RestaurantService {
 
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final RestaurantRepository restaurants;
     private final MenuItemRepository items;
     private final MenuVariationRepository variations;
+    private final MenuCatalog catalog;
+    private final MenuCache menuCache;
+    private final MenuChangeLog changeLog;
+    private final RestaurantSearch search;
 
     public RestaurantService(RestaurantRepository restaurants,
                              MenuItemRepository items,
-                             MenuVariationRepository variations) {
+                             MenuVariationRepository variations,
+                             MenuCatalog catalog,
+                             MenuCache menuCache,
+                             MenuChangeLog changeLog,
+                             RestaurantSearch search) {
         this.restaurants = restaurants;
         this.items = items;
         this.variations = variations;
+        this.catalog = catalog;
+        this.menuCache = menuCache;
+        this.changeLog = changeLog;
+        this.search = search;
     }
 
     public Restaurant create(Restaurant r) {
-        return restaurants.save(r);
+        Restaurant saved = restaurants.save(r);
+        search.restaurantSaved(saved);
+        return saved;
     }
 
     public Restaurant getOrThrow(Long id) {
@@ -38,6 +57,8 @@ public class RestaurantService {
         if (patch.getName() != null) r.setName(patch.getName());
         if (patch.getCuisine() != null) r.setCuisine(patch.getCuisine());
         r.setOpen(patch.isOpen());
+        catalog.restaurantOpenChanged(id, r.isOpen());
+        search.restaurantSaved(r);
         return r;
     }
 
@@ -45,19 +66,39 @@ public class RestaurantService {
     public void close(Long id) {
         Restaurant r = getOrThrow(id);
         r.setOpen(false);
+        catalog.restaurantOpenChanged(id, false);
+        search.restaurantSaved(r);
     }
 
-    public Page<Restaurant> list(Cuisine cuisine, Double minRating, Pageable pageable) {
-        if (cuisine != null && minRating != null) {
-            return restaurants.findByCuisineAndRatingGreaterThanEqual(cuisine, minRating, pageable);
-        } else if (cuisine != null) {
-            return restaurants.findByCuisine(cuisine, pageable);
-        } else if (minRating != null) {
-            return restaurants.findByRatingGreaterThanEqual(minRating, pageable);
+    /**
+     * Страница ресторанов по keyset-курсору в порядке (rating desc, id): условия — только заданные фильтры,
+     * LIMIT в SQL и без count(*), глубина страницы на стоимость не влияет.
+     */
+    @Transactional(readOnly = true)
+    public RestaurantSlice page(RestaurantFilter filter, String cursor, int limit) {
+        int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        Specification<Restaurant> spec = RestaurantSpecifications.matching(filter);
+        if (cursor != null && !cursor.isBlank()) {
+            String[] last = CursorCodec.decode(cursor, 2);
+            try {
+                spec = spec.and(RestaurantSpecifications.after(Double.parseDouble(last[0]), Long.parseLong(last[1])));
+            } catch (NumberFormatException e) {
+                throw new ApiBadRequestException("BAD_CURSOR", "Invalid cursor");
+            }
         }
-        return restaurants.findAll(pageable);
+        // +1 строка, чтобы понять, есть ли следующая страница
+        List<Restaurant> rows = restaurants.findBy(spec,
+                q -> q.sortBy(RestaurantSpecifications.KEYSET_ORDER).limit(size + 1).all());
+
+        boolean hasMore = rows.size() > size;
+        if (hasMore) rows = rows.subList(0, size);
+        Restaurant tail = rows.isEmpty() ? null : rows.get(rows.size() - 1);
+        String next = hasMore ? CursorCodec.encode(tail.getRating(), tail.getId()) : null;
+        return new RestaurantSlice(rows, next);
     }
 
+    public record RestaurantSlice(List<Restaurant> restaurants, String nextCursor) {}
+
     @Transactional
     public MenuItem addDish(Long restaurantId, String name, String description, List<MenuVariation> newVariations) {
         Restaurant r = getOrThrow(restaurantId);
@@ -68,17 +109,28 @@ public class RestaurantService {
         item.setDescription(description);
         items.save(item);
 
+        List<MenuCatalogRow> rows = new ArrayList<>(newVariations.size());
         for (MenuVariation v : newVariations) {
             v.setItem(item);
             MenuVariation savedVar = variations.save(v);
             item.getVariations().add(savedVar);
+            rows.add(new MenuCatalogRow(savedVar.getId(), r.getId(), r.isOpen(), savedVar.getPriceCents(),
+                    savedVar.getCookingMinutes(), savedVar.isAvailable(), savedVar.getLabel()));
         }
+        changeLog.append(restaurantId, item.getId(), null, false);
+        catalog.variationsSaved(rows);
+        menuCache.invalidate(restaurantId);
+        search.dishSaved(item);
 
         return item;
     }
 
-    public List<MenuItem> menuOf(Long restaurantId) {
-        return items.findByRestaurantIdOrderByIdAsc(restaurantId);
+    public RenderedMenu menuOf(Long restaurantId) {
+        return menuCache.menuOf(restaurantId);
+    }
+
+    public MenuChangesDto menuChangesSince(Long restaurantId, long since) {
+        return changeLog.changesSince(restaurantId, since);
     }
 
     @Transactional
@@ -87,11 +139,21 @@ public class RestaurantService {
         if (name != null) item.setName(name);
         if (description != null) item.setDescription(description);
         if (active != null) item.setActive(active);
+        changeLog.append(item.getRestaurant().getId(), itemId, null, false);
+        menuCache.invalidate(item.getRestaurant().getId());
+        search.dishSaved(item);
         return item;
     }
 
+    @Transactional
     public void deleteDish(Long itemId) {
-        items.deleteById(itemId);
+        items.findById(itemId).ifPresent(item -> {
+            changeLog.append(item.getRestaurant().getId(), itemId, null, true);
+            catalog.variationsRemoved(item.getVariations().stream().map(MenuVariation::getId).toList());
+            menuCache.invalidate(item.getRestaurant().getId());
+            search.dishRemoved(itemId);
+            items.delete(item);
+        });
     }
 
     @Transactional
@@ -99,6 +161,9 @@ public class RestaurantService {
         MenuVariation v = variations.findById(variationId)
                 .orElseThrow(() -> new NotFoundException("Вариация не найдена"));
         v.setAvailable(available);
+        changeLog.append(v.getItem().getRestaurant().getId(), v.getItem().getId(), variationId, false);
+        catalog.availabilityChanged(variationId, available);
+        menuCache.invalidate(v.getItem().getRestaurant().getId());
         return v;
     }
 }
\ No newline at end of file
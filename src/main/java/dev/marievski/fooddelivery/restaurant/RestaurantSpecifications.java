@@ -0,0 +1,51 @@
+package dev.marievski.fooddelivery.restaurant;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Составные условия для списка ресторанов: каждый фильтр — отдельная Specification, пустой фильтр не добавляет
+ * ничего, поэтому в SQL попадают только заданные условия (и подходящий составной индекс restaurants).
+ */
+final class RestaurantSpecifications {
+
+    /** Порядок keyset-страниц: лучшие сначала, при равном рейтинге — по id. */
+    static final Sort KEYSET_ORDER = Sort.by(Sort.Order.desc("rating"), Sort.Order.asc("id"));
+
+    private RestaurantSpecifications() {}
+
+    static Specification<Restaurant> matching(RestaurantFilter filter) {
+        return Specification.where(isOpen(filter.open()))
+                .and(cuisineIn(filter))
+                .and(ratingAtLeast(filter.minRating()))
+                .and(nameStartsWith(filter.namePrefix()));
+    }
+
+    /** Строки строго после (rating, id) последней строки предыдущей страницы в порядке {@link #KEYSET_ORDER}. */
+    static Specification<Restaurant> after(double rating, long id) {
+        return (root, query, cb) -> cb.or(
+                cb.lessThan(root.get("rating"), rating),
+                cb.and(cb.equal(root.get("rating"), rating), cb.greaterThan(root.get("id"), id)));
+    }
+
+    private static Specification<Restaurant> isOpen(Boolean open) {
+        return open == null ? null : (root, query, cb) -> cb.equal(root.get("open"), open);
+    }
+
+    private static Specification<Restaurant> cuisineIn(RestaurantFilter filter) {
+        if (filter.cuisines() == null || filter.cuisines().isEmpty()) return null;
+        return (root, query, cb) -> root.get("cuisine").in(filter.cuisines());
+    }
+
+    private static Specification<Restaurant> ratingAtLeast(Double minRating) {
+        return minRating == null ? null : (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("rating"), minRating);
+    }
+
+    /** Префикс названия без учёта регистра; % и _ из ввода экранируются. */
+    private static Specification<Restaurant> nameStartsWith(String prefix) {
+        if (prefix == null || prefix.isBlank()) return null;
+        String pattern = prefix.strip().toLowerCase()
+                .replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+        return (root, query, cb) -> cb.like(cb.lower(root.get("name")), pattern, '\\');
+    }
+}
@@ -0,0 +1,26 @@
+package dev.marievski.fooddelivery.restaurant.dto;
+
+import java.util.List;
+
+/**
+ * Изменения меню после версии since. resync == true — журнал уже сжат (или разрыв слишком велик):
+ * нужно заново забрать GET /restaurants/{id}/menu, списки тогда пустые.
+ */
+public class MenuChangesDto {
+    private long version;
+    private boolean resync;
+    private List<MenuItemDto> items = List.of();        // блюда целиком (добавлены или изменены)
+    private List<VariationDto> variations = List.of();  // отдельные вариации (смена доступности)
+    private List<Long> deletedItemIds = List.of();
+
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
+    public boolean isResync() { return resync; }
+    public void setResync(boolean resync) { this.resync = resync; }
+    public List<MenuItemDto> getItems() { return items; }
+    public void setItems(List<MenuItemDto> items) { this.items = items; }
+    public List<VariationDto> getVariations() { return variations; }
+    public void setVariations(List<VariationDto> variations) { this.variations = variations; }
+    public List<Long> getDeletedItemIds() { return deletedItemIds; }
+    public void setDeletedItemIds(List<Long> deletedItemIds) { this.deletedItemIds = deletedItemIds; }
+}
@@ -0,0 +1,20 @@
+package dev.marievski.fooddelivery.restaurant.dto;
+
+import java.util.List;
+
+public class RestaurantPageDto {
+    private List<RestaurantDto> items;
+    private String nextCursor; // null — дальше страниц нет
+
+    public RestaurantPageDto() {}
+
+    public RestaurantPageDto(List<RestaurantDto> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<RestaurantDto> getItems() { return items; }
+    public void setItems(List<RestaurantDto> items) { this.items = items; }
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+}
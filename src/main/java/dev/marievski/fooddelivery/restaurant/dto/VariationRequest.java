@@ -1,5 +1,7 @@
 package dev.marievski.fooddelivery.restaurant.dto;
 
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Digits;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -9,6 +11,8 @@ public class VariationRequest {
     @NotBlank
     private String label;
     @NotNull
+    @DecimalMin("0.00")
+    @Digits(integer = 10, fraction = 2) // numeric(12,2): в копейки переводится без округления
     private BigDecimal price;
     @Min(1)
     private int cookingMinutes;
@@ -0,0 +1,20 @@
+package dev.marievski.fooddelivery.routing;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/** Для пишущих запросов маршрутизируемых путей читает тело заранее — см. {@link UserAffinityInterceptor}. */
+class CachedBodyFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        boolean writes = UserAffinityInterceptor.isWrite(request.getMethod());
+        chain.doFilter(writes ? new CachedBodyRequest(request) : request, response);
+    }
+}
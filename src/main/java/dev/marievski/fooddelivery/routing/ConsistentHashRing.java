@@ -0,0 +1,53 @@
+package dev.marievski.fooddelivery.routing;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Кольцо консистентного хеширования: у каждого узла {@code virtualNodes} точек на кольце,
+ * ключ принадлежит первой точке по часовой стрелке. При добавлении/удалении узла переезжает
+ * только ~1/N ключей, а не почти все, как при {@code hash % N}.
+ * Хеш — первые 8 байт MD5: стабилен между JVM и инстансами (в отличие от hashCode строк/объектов).
+ */
+public final class ConsistentHashRing {
+
+    private final TreeMap<Long, String> ring = new TreeMap<>();
+    private final List<String> nodes;
+
+    public ConsistentHashRing(Collection<String> nodes, int virtualNodes) {
+        if (nodes.isEmpty()) throw new IllegalArgumentException("nodes must not be empty");
+        if (virtualNodes <= 0) throw new IllegalArgumentException("virtualNodes must be > 0");
+        this.nodes = List.copyOf(nodes);
+        for (String node : this.nodes) {
+            for (int i = 0; i < virtualNodes; i++) {
+                ring.put(hash(node + "#" + i), node);
+            }
+        }
+    }
+
+    /** Узел-владелец ключа. */
+    public String nodeFor(String key) {
+        Map.Entry<Long, String> e = ring.ceilingEntry(hash(key));
+        return e != null ? e.getValue() : ring.firstEntry().getValue();
+    }
+
+    public List<String> nodes() {
+        return nodes;
+    }
+
+    static long hash(String key) {
+        try {
+            byte[] d = MessageDigest.getInstance("MD5").digest(key.getBytes(StandardCharsets.UTF_8));
+            long h = 0;
+            for (int i = 0; i < 8; i++) h = (h << 8) | (d[i] & 0xff);
+            return h;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package dev.marievski.fooddelivery.routing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Маршрутизация по пользователю между инстансами (app.routing.*). Список узлов статический — из конфига,
+ * поэтому работает и для нескольких локальных инстансов на разных портах. По умолчанию выключена.
+ */
+@Configuration
+public class RoutingConfig implements WebMvcConfigurer {
+
+    private static final Logger log = LoggerFactory.getLogger(RoutingConfig.class);
+
+    private final boolean enabled;
+    private final String self;
+    private final List<String> nodes;
+    private final int virtualNodes;
+    private final ObjectMapper objectMapper;
+
+    public RoutingConfig(ObjectMapper objectMapper,
+                         @Value("${app.routing.enabled:false}") boolean enabled,
+                         @Value("${app.routing.self:}") String self,
+                         @Value("${app.routing.nodes:}") List<String> nodes,
+                         @Value("${app.routing.virtual-nodes:128}") int virtualNodes) {
+        this.enabled = enabled;
+        this.self = self;
+        this.nodes = nodes;
+        this.virtualNodes = virtualNodes;
+        this.objectMapper = objectMapper;
+    }
+
+    /** Тело пишущих запросов нужно интерсептору до контроллера — читаем его заранее. */
+    @Bean
+    public FilterRegistrationBean<CachedBodyFilter> routingBodyFilter() {
+        FilterRegistrationBean<CachedBodyFilter> registration = new FilterRegistrationBean<>(new CachedBodyFilter());
+        registration.addUrlPatterns("/cart/*", "/orders");
+        registration.setEnabled(enabled);
+        return registration;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (!enabled) return;
+        if (!nodes.contains(self)) {
+            throw new IllegalStateException("app.routing.self (" + self + ") must be one of app.routing.nodes " + nodes);
+        }
+        log.info("User affinity routing on: self={}, nodes={}", self, nodes);
+        registry.addInterceptor(new UserAffinityInterceptor(new ConsistentHashRing(nodes, virtualNodes), self, objectMapper))
+                .addPathPatterns("/cart", "/cart/**", "/orders");
+    }
+}
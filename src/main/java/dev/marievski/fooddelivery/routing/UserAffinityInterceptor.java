@@ -0,0 +1,98 @@
+package dev.marievski.fooddelivery.routing;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.marievski.fooddelivery.common.ApiBadRequestException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.util.WebUtils;
+
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * Отправляет запросы корзины/оформления на узел-владелец пользователя: один писатель корзины
+ * и тёплые локальные кэши (корзины в памяти, меню) на этом узле.
+ * <p>
+ * Пользователь берётся из параметра userId, из поля userId JSON-тела (тело заранее читает {@link CachedBodyFilter})
+ * или из заголовка X-User-Id; если указано несколько — они должны совпадать, иначе 400. Пишущий запрос без
+ * пользователя — 400: обслужи его любой узел, у корзины снова было бы несколько писателей. Чтение без пользователя
+ * обслуживается на месте. Чужой запрос получает 307 на тот же путь владельца (307 сохраняет метод и тело).
+ * В Location добавляется маркер {@value #HOP_PARAM}: пришедший с ним запрос обслуживается на месте, даже если
+ * по мнению этого узла владелец другой, — так расхождение списков узлов на время раскатки конфига
+ * не превращается в бесконечные редиректы.
+ */
+public class UserAffinityInterceptor implements HandlerInterceptor {
+
+    static final String USER_HEADER = "X-User-Id";
+    static final String HOP_PARAM = "routed";
+
+    private static final Set<String> WRITE_METHODS = Set.of("POST", "PUT", "PATCH", "DELETE");
+
+    private final ConsistentHashRing ring;
+    private final String self;
+    private final ObjectMapper objectMapper;
+
+    public UserAffinityInterceptor(ConsistentHashRing ring, String self, ObjectMapper objectMapper) {
+        this.ring = ring;
+        this.self = self;
+        this.objectMapper = objectMapper;
+    }
+
+    static boolean isWrite(String method) {
+        return WRITE_METHODS.contains(method);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        String userId = userOf(request);
+        if (userId == null) {
+            if (isWrite(request.getMethod())) {
+                throw new ApiBadRequestException("USER_REQUIRED",
+                        "Нужен userId (параметр, поле тела или заголовок " + USER_HEADER + ")");
+            }
+            return true;
+        }
+        if (request.getParameter(HOP_PARAM) != null) return true;
+
+        String owner = ring.nodeFor(userId);
+        if (owner.equals(self)) return true;
+
+        String query = request.getQueryString();
+        String location = owner + request.getRequestURI()
+                + (query == null ? "?" : "?" + query + "&") + HOP_PARAM + "=1";
+        response.setStatus(HttpStatus.TEMPORARY_REDIRECT.value());
+        response.setHeader(HttpHeaders.LOCATION, location);
+        return false;
+    }
+
+    /** Пользователь запроса или null; разные значения в параметре, теле и заголовке — 400. */
+    private String userOf(HttpServletRequest request) {
+        String userId = null;
+        for (String candidate : new String[]{request.getParameter("userId"), bodyUser(request),
+                request.getHeader(USER_HEADER)}) {
+            if (candidate == null || candidate.isBlank()) continue;
+            candidate = candidate.trim();
+            if (userId != null && !userId.equals(candidate)) {
+                throw new ApiBadRequestException("USER_MISMATCH",
+                        "userId в параметре, теле и заголовке " + USER_HEADER + " не совпадают");
+            }
+            userId = candidate;
+        }
+        return userId;
+    }
+
+    private String bodyUser(HttpServletRequest request) {
+        CachedBodyRequest cached = WebUtils.getNativeRequest(request, CachedBodyRequest.class);
+        if (cached == null || cached.body().length == 0) return null;
+        try {
+            JsonNode user = objectMapper.readTree(cached.body()).get("userId");
+            return user != null && user.isValueNode() && !user.isNull() ? user.asText() : null;
+        } catch (IOException notJson) {
+            return null; // некорректное тело отклонит контроллер
+        }
+    }
+}
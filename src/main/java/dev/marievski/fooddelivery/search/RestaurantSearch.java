@@ -0,0 +1,129 @@
+package dev.marievski.fooddelivery.search;
+
+import dev.marievski.fooddelivery.restaurant.MenuItem;
+import dev.marievski.fooddelivery.restaurant.MenuItemRepository;
+import dev.marievski.fooddelivery.restaurant.MenuVariation;
+import dev.marievski.fooddelivery.restaurant.Restaurant;
+import dev.marievski.fooddelivery.restaurant.RestaurantRepository;
+import dev.marievski.fooddelivery.search.dto.SearchHitDto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * GET /search поверх {@link SearchIndex}. Индекс строится из БД целиком при первом запросе,
+ * дальше RestaurantService сообщает о каждой правке ресторана или блюда — она применяется после коммита.
+ * Неактивные блюда в индекс не попадают. Правки с других инстансов этот индекс не видит до рестарта.
+ */
+@Service
+public class RestaurantSearch {
+
+    private static final Logger log = LoggerFactory.getLogger(RestaurantSearch.class);
+    private static final int MAX_LIMIT = 100;
+
+    private final RestaurantRepository restaurants;
+    private final MenuItemRepository items;
+    private final TransactionTemplate readTx;
+    private final SearchIndex index = new SearchIndex();
+    private final Object buildLock = new Object();
+    private volatile boolean loaded;
+
+    public RestaurantSearch(RestaurantRepository restaurants,
+                            MenuItemRepository items,
+                            PlatformTransactionManager txManager) {
+        this.restaurants = restaurants;
+        this.items = items;
+        this.readTx = new TransactionTemplate(txManager);
+        this.readTx.setReadOnly(true);
+    }
+
+    public List<SearchHitDto> search(String query, int limit) {
+        ensureLoaded();
+        List<SearchHitDto> out = new ArrayList<>();
+        for (SearchIndex.Hit hit : index.search(query, Math.max(1, Math.min(limit, MAX_LIMIT)))) {
+            SearchHitDto dto = new SearchHitDto();
+            dto.setType(hit.type().name());
+            dto.setId(hit.id());
+            dto.setRestaurantId(hit.restaurantId());
+            dto.setName(hit.name());
+            dto.setRestaurantName(hit.restaurantName());
+            dto.setScore(hit.score());
+            out.add(dto);
+        }
+        return out;
+    }
+
+    // --- правки из RestaurantService: документ снимается сразу, в индекс попадает после коммита ---
+
+    public void restaurantSaved(Restaurant r) {
+        SearchIndex.RestaurantDoc doc = toDoc(r);
+        afterCommit(index -> index.putRestaurant(doc));
+    }
+
+    public void dishSaved(MenuItem item) {
+        if (!item.isActive()) {
+            dishRemoved(item.getId());
+            return;
+        }
+        SearchIndex.DishDoc doc = toDoc(item);
+        afterCommit(index -> index.putDish(doc));
+    }
+
+    public void dishRemoved(Long itemId) {
+        afterCommit(index -> index.removeDish(itemId));
+    }
+
+    private void ensureLoaded() {
+        if (loaded) return;
+        synchronized (buildLock) {
+            if (loaded) return;
+            readTx.executeWithoutResult(status -> {
+                restaurants.findAll().forEach(r -> index.putRestaurant(toDoc(r)));
+                items.findAllActiveWithVariations().forEach(item -> index.putDish(toDoc(item)));
+            });
+            loaded = true;
+            log.info("Search index built: {} dishes", index.dishCount());
+        }
+    }
+
+    /**
+     * Пока индекс не построен, правки не нужны — построение прочитает их из БД. Под buildLock:
+     * правка, закоммиченная во время построения, дождётся его и применится поверх.
+     */
+    private void apply(Consumer<SearchIndex> change) {
+        synchronized (buildLock) {
+            if (loaded) change.accept(index);
+        }
+    }
+
+    private void afterCommit(Consumer<SearchIndex> change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(change);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply(change);
+            }
+        });
+    }
+
+    private static SearchIndex.RestaurantDoc toDoc(Restaurant r) {
+        return new SearchIndex.RestaurantDoc(r.getId(), r.getName(), r.isOpen(), r.getRating());
+    }
+
+    private static SearchIndex.DishDoc toDoc(MenuItem item) {
+        List<String> labels = item.getVariations().stream().map(MenuVariation::getLabel).toList();
+        return new SearchIndex.DishDoc(item.getId(), item.getRestaurant().getId(), item.getName(),
+                item.getDescription(), labels);
+    }
+}
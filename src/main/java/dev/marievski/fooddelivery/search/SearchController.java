@@ -0,0 +1,25 @@
+package dev.marievski.fooddelivery.search;
+
+import dev.marievski.fooddelivery.search.dto.SearchHitDto;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+public class SearchController {
+
+    private final RestaurantSearch search;
+
+    public SearchController(RestaurantSearch search) {
+        this.search = search;
+    }
+
+    /** Поиск по названиям ресторанов и блюд, описаниям и вариациям; слова запроса — префиксы. */
+    @GetMapping("/search")
+    public List<SearchHitDto> search(@RequestParam String q,
+                                     @RequestParam(defaultValue = "20") int limit) {
+        return search.search(q, limit);
+    }
+}
@@ -0,0 +1,427 @@
+package dev.marievski.fooddelivery.search;
+
+import dev.marievski.fooddelivery.common.LongIntHashMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Инвертированный индекс в памяти по ресторанам (название) и блюдам (название, описание, подписи вариаций).
+ * <p>
+ * Термы — в отсортированном словаре, поэтому каждое слово запроса ищется как префикс (subMap).
+ * Все слова запроса должны найтись в документе; вес совпадения зависит от поля (+1 за точное слово),
+ * итог умножается на рейтинг ресторана и понижается для закрытых. Обновления — по одному документу,
+ * без перестроения.
+ * <p>
+ * Документы живут в слотах (int), постинги — примитивные массивы слотов, разложенные по весу поля; поиск считает
+ * совпадения в рабочих массивах потока, без упаковки и без карт на запрос. Запрос из одного слова обходит постинги
+ * по убыванию веса и останавливается, когда следующий вес даже при лучшем рейтинге не попадёт в топ, — короткий
+ * префикс вроде «пиц» не перебирает все блюда. Потокобезопасен: поиск под read-локом, правки под write-локом.
+ */
+public final class SearchIndex {
+
+    public enum HitType { RESTAURANT, DISH }
+
+    public record RestaurantDoc(long id, String name, boolean open, double rating) {}
+
+    public record DishDoc(long id, long restaurantId, String name, String description, List<String> labels) {}
+
+    public record Hit(HitType type, long id, long restaurantId, String name, String restaurantName, double score) {}
+
+    static final int RESTAURANT_NAME = 4;
+    static final int DISH_NAME = 3;
+    static final int LABEL = 2;
+    static final int DESCRIPTION = 1;
+    private static final int MAX_WEIGHT = RESTAURANT_NAME;
+
+    private static final double CLOSED_FACTOR = 0.25;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Terms restaurantTerms = new Terms();
+    private final Terms dishTerms = new Terms();
+    // --- по слоту ресторана (рестораны не удаляются) ---
+    private final LongIntHashMap restaurantSlots = new LongIntHashMap(1024, -1);
+    private double[] restaurantRating = new double[16];
+    private boolean[] restaurantOpen = new boolean[16];
+    private double maxRating; // только растёт — верхняя граница множителя рейтинга
+    // --- по слоту блюда ---
+    private long[] dishRestaurant = new long[16];
+
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
+    /** Постинги терма: слоты документов по весу поля (docs[weight]), внутри веса без порядка. */
+    private static final class Postings {
+        final int[][] docs = new int[MAX_WEIGHT + 1][];
+        final int[] sizes = new int[MAX_WEIGHT + 1];
+        int size;
+
+        void add(int doc, int weight) {
+            int[] d = docs[weight];
+            if (d == null) {
+                d = docs[weight] = new int[4];
+            } else if (sizes[weight] == d.length) {
+                d = docs[weight] = Arrays.copyOf(d, d.length * 2);
+            }
+            d[sizes[weight]++] = doc;
+            size++;
+        }
+
+        void remove(int doc) {
+            for (int w = 1; w <= MAX_WEIGHT; w++) {
+                int[] d = docs[w];
+                for (int i = 0; i < sizes[w]; i++) {
+                    if (d[i] == doc) {
+                        d[i] = d[--sizes[w]];
+                        size--;
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    /** Словарь термов одного вида документов и слоты этих документов. */
+    private static final class Terms {
+        final TreeMap<String, Postings> postings = new TreeMap<>();
+        final Map<Long, Integer> slotById = new HashMap<>();
+        long[] ids = new long[16];
+        String[] names = new String[16];
+        String[][] termsOf = new String[16][];
+        int[] free = new int[16];
+        int freeCount;
+        int slotsUsed; // слоты [0, slotsUsed) когда-либо выдавались
+
+        int put(long id, String name, Map<String, Integer> weights) {
+            Integer existing = slotById.get(id);
+            int slot;
+            if (existing != null) {
+                slot = existing;
+                unlink(slot);
+            } else {
+                slot = freeCount > 0 ? free[--freeCount] : slotsUsed++;
+                if (slot == ids.length) grow();
+                slotById.put(id, slot);
+            }
+            ids[slot] = id;
+            names[slot] = name;
+            String[] terms = weights.keySet().toArray(new String[0]);
+            termsOf[slot] = terms;
+            for (String term : terms) postings.computeIfAbsent(term, t -> new Postings()).add(slot, weights.get(term));
+            return slot;
+        }
+
+        void remove(long id) {
+            Integer slot = slotById.remove(id);
+            if (slot == null) return;
+            unlink(slot);
+            names[slot] = null;
+            if (freeCount == free.length) free = Arrays.copyOf(free, freeCount * 2);
+            free[freeCount++] = slot;
+        }
+
+        private void unlink(int slot) {
+            for (String term : termsOf[slot]) {
+                Postings p = postings.get(term);
+                p.remove(slot);
+                if (p.size == 0) postings.remove(term);
+            }
+            termsOf[slot] = null;
+        }
+
+        private void grow() {
+            int capacity = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            names = Arrays.copyOf(names, capacity);
+            termsOf = Arrays.copyOf(termsOf, capacity);
+        }
+
+        Map<String, Postings> range(String prefix) {
+            return postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+        }
+
+        /** Сколько постингов у всех термов с этим префиксом — чтобы начинать с самого редкого слова. */
+        int postingsFor(String prefix) {
+            int total = 0;
+            for (Postings p : range(prefix).values()) total += p.size;
+            return total;
+        }
+    }
+
+    /**
+     * Рабочие массивы потока. stamp[slot] == base + k + 1 — документ совпал со словами 0..k текущего запроса;
+     * base растёт на (число слов + 1) за проход, поэтому между запросами массивы не чистятся.
+     */
+    private static final class Scratch {
+        int[] stamp = new int[0];
+        int[] best = new int[0];
+        int[] score = new int[0];
+        int[] current = new int[0];
+        int[] next = new int[0];
+        int base;
+        // лучшие совпадения: по убыванию веса, при равенстве — по возрастанию id
+        double[] topScore = new double[0];
+        long[] topId = new long[0];
+        int[] topSlot = new int[0];
+        boolean[] topDish = new boolean[0];
+        int topSize;
+
+        void ensure(int slots, int limit) {
+            if (stamp.length < slots) {
+                int capacity = Math.max(slots, stamp.length * 2);
+                stamp = new int[capacity];
+                best = new int[capacity];
+                score = new int[capacity];
+                current = new int[capacity];
+                next = new int[capacity];
+                base = 0;
+            }
+            if (topScore.length < limit) {
+                topScore = new double[limit];
+                topId = new long[limit];
+                topSlot = new int[limit];
+                topDish = new boolean[limit];
+            }
+            topSize = 0;
+        }
+
+        int nextBase(int tokens) {
+            if (base > Integer.MAX_VALUE - tokens - 2) {
+                Arrays.fill(stamp, 0);
+                base = 0;
+            }
+            int b = base + 1;
+            base += tokens + 1;
+            return b;
+        }
+
+        void offer(double s, long id, int slot, boolean dish, int limit) {
+            int pos = topSize;
+            if (pos == limit) {
+                if (!before(s, id, topScore[pos - 1], topId[pos - 1])) return;
+                pos--;
+            } else {
+                topSize++;
+            }
+            while (pos > 0 && before(s, id, topScore[pos - 1], topId[pos - 1])) {
+                topScore[pos] = topScore[pos - 1];
+                topId[pos] = topId[pos - 1];
+                topSlot[pos] = topSlot[pos - 1];
+                topDish[pos] = topDish[pos - 1];
+                pos--;
+            }
+            topScore[pos] = s;
+            topId[pos] = id;
+            topSlot[pos] = slot;
+            topDish[pos] = dish;
+        }
+
+        private static boolean before(double s, long id, double otherScore, long otherId) {
+            return s > otherScore || (s == otherScore && id < otherId);
+        }
+    }
+
+    public void putRestaurant(RestaurantDoc doc) {
+        Map<String, Integer> weights = new HashMap<>();
+        addTerms(weights, doc.name(), RESTAURANT_NAME);
+        lock.writeLock().lock();
+        try {
+            int slot = restaurantTerms.put(doc.id(), doc.name(), weights);
+            if (slot >= restaurantRating.length) {
+                restaurantRating = Arrays.copyOf(restaurantRating, restaurantTerms.ids.length);
+                restaurantOpen = Arrays.copyOf(restaurantOpen, restaurantTerms.ids.length);
+            }
+            restaurantRating[slot] = Math.max(0, doc.rating());
+            restaurantOpen[slot] = doc.open();
+            maxRating = Math.max(maxRating, restaurantRating[slot]);
+            restaurantSlots.put(doc.id(), slot);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void putDish(DishDoc doc) {
+        Map<String, Integer> weights = new HashMap<>();
+        addTerms(weights, doc.description(), DESCRIPTION);
+        for (String label : doc.labels()) addTerms(weights, label, LABEL);
+        addTerms(weights, doc.name(), DISH_NAME);
+        lock.writeLock().lock();
+        try {
+            int slot = dishTerms.put(doc.id(), doc.name(), weights);
+            if (slot >= dishRestaurant.length) dishRestaurant = Arrays.copyOf(dishRestaurant, dishTerms.ids.length);
+            dishRestaurant[slot] = doc.restaurantId();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeDish(long id) {
+        lock.writeLock().lock();
+        try {
+            dishTerms.remove(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int dishCount() {
+        lock.readLock().lock();
+        try {
+            return dishTerms.slotById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Лучшие limit совпадений по убыванию веса; пустой запрос — пустой ответ. */
+    public List<Hit> search(String query, int limit) {
+        List<String> tokens = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+        if (tokens.isEmpty() || limit <= 0) return List.of();
+        Scratch s = scratch.get();
+        lock.readLock().lock();
+        try {
+            s.ensure(Math.max(restaurantTerms.slotsUsed, dishTerms.slotsUsed), limit);
+            if (tokens.size() == 1) {
+                topByWeight(restaurantTerms, tokens.get(0), s, false, limit);
+                topByWeight(dishTerms, tokens.get(0), s, true, limit);
+                return hits(s);
+            }
+            int n = match(restaurantTerms, tokens, s);
+            for (int i = 0; i < n; i++) {
+                int slot = s.current[i];
+                s.offer(rank(s.score[slot], slot), restaurantTerms.ids[slot], slot, false, limit);
+            }
+            n = match(dishTerms, tokens, s);
+            for (int i = 0; i < n; i++) {
+                int slot = s.current[i];
+                s.offer(rank(s.score[slot], restaurantSlots.get(dishRestaurant[slot])),
+                        dishTerms.ids[slot], slot, true, limit);
+            }
+            return hits(s);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Одно слово: вес документа — лучший из весов его термов с этим префиксом, поэтому постинги обходятся
+     * по убыванию веса (с бонусом за точное слово), и первый найденный вес документа — лучший. Обход
+     * останавливается, когда топ полон и его последний вес больше, чем даст следующий вес при лучшем рейтинге.
+     */
+    private void topByWeight(Terms terms, String token, Scratch s, boolean dish, int limit) {
+        Map<String, Postings> range = terms.range(token);
+        int seen = s.nextBase(1);
+        double maxFactor = 1 + maxRating / 5;
+        for (int w = MAX_WEIGHT + 1; w > 0; w--) {
+            if (s.topSize == limit && s.topScore[limit - 1] > w * maxFactor) return;
+            for (Map.Entry<String, Postings> e : range.entrySet()) {
+                int weight = e.getKey().length() == token.length() ? w - 1 : w;
+                if (weight < 1 || weight > MAX_WEIGHT) continue;
+                Postings p = e.getValue();
+                int[] docs = p.docs[weight];
+                for (int i = 0; i < p.sizes[weight]; i++) {
+                    int doc = docs[i];
+                    if (s.stamp[doc] == seen) continue;
+                    s.stamp[doc] = seen;
+                    if (dish) {
+                        s.offer(rank(w, restaurantSlots.get(dishRestaurant[doc])), terms.ids[doc], doc, true, limit);
+                    } else {
+                        s.offer(rank(w, doc), terms.ids[doc], doc, false, limit);
+                    }
+                }
+            }
+        }
+    }
+
+    private List<Hit> hits(Scratch s) {
+        List<Hit> hits = new ArrayList<>(s.topSize);
+        for (int i = 0; i < s.topSize; i++) hits.add(toHit(s, i));
+        return hits;
+    }
+
+    /** Слоты документов, где каждое слово — префикс какого-то терма: в s.current, сумма весов — в s.score. */
+    private static int match(Terms terms, List<String> tokens, Scratch s) {
+        if (tokens.size() > 1) tokens.sort((a, b) -> Integer.compare(terms.postingsFor(a), terms.postingsFor(b)));
+        int base = s.nextBase(tokens.size());
+        int count = 0;
+        for (int k = 0; k < tokens.size(); k++) {
+            String token = tokens.get(k);
+            int matched = base + k + 1;
+            int nextCount = 0;
+            for (Map.Entry<String, Postings> e : terms.range(token).entrySet()) {
+                int bonus = e.getKey().length() == token.length() ? 1 : 0;
+                Postings p = e.getValue();
+                for (int weight = 1; weight <= MAX_WEIGHT; weight++) {
+                    int[] docs = p.docs[weight];
+                    int w = weight + bonus;
+                    for (int i = 0; i < p.sizes[weight]; i++) {
+                        int doc = docs[i];
+                        int st = s.stamp[doc];
+                        if (st == matched) {
+                            if (w > s.best[doc]) s.best[doc] = w;
+                        } else if (k == 0 ? st < base : st == base + k) {
+                            s.stamp[doc] = matched;
+                            s.best[doc] = w;
+                            s.next[nextCount++] = doc;
+                        }
+                    }
+                }
+            }
+            for (int i = 0; i < nextCount; i++) {
+                int doc = s.next[i];
+                s.score[doc] = (k == 0 ? 0 : s.score[doc]) + s.best[doc];
+            }
+            int[] swap = s.current;
+            s.current = s.next;
+            s.next = swap;
+            count = nextCount;
+            if (count == 0) break;
+        }
+        return count;
+    }
+
+    private double rank(int textScore, int restaurantSlot) {
+        if (restaurantSlot < 0) return textScore;
+        return textScore * (1 + restaurantRating[restaurantSlot] / 5)
+                * (restaurantOpen[restaurantSlot] ? 1 : CLOSED_FACTOR);
+    }
+
+    private Hit toHit(Scratch s, int i) {
+        int slot = s.topSlot[i];
+        if (!s.topDish[i]) {
+            String name = restaurantTerms.names[slot];
+            return new Hit(HitType.RESTAURANT, s.topId[i], s.topId[i], name, name, s.topScore[i]);
+        }
+        long restaurantId = dishRestaurant[slot];
+        int r = restaurantSlots.get(restaurantId);
+        return new Hit(HitType.DISH, s.topId[i], restaurantId, dishTerms.names[slot],
+                r >= 0 ? restaurantTerms.names[r] : null, s.topScore[i]);
+    }
+
+    private static void addTerms(Map<String, Integer> weights, String text, int weight) {
+        for (String term : tokenize(text)) weights.merge(term, weight, Math::max);
+    }
+
+    /** Слова из букв и цифр в нижнем регистре, ё -> е. */
+    static List<String> tokenize(String text) {
+        if (text == null || text.isEmpty()) return List.of();
+        List<String> tokens = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                current.append(c == 'ё' || c == 'Ё' ? 'е' : Character.toLowerCase(c));
+            } else if (!current.isEmpty()) {
+                tokens.add(current.toString());
+                current.setLength(0);
+            }
+        }
+        if (!current.isEmpty()) tokens.add(current.toString());
+        return tokens;
+    }
+}
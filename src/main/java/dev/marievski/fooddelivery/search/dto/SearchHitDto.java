@@ -0,0 +1,23 @@
+package dev.marievski.fooddelivery.search.dto;
+
+public class SearchHitDto {
+    private String type;            // RESTAURANT или DISH
+    private Long id;                // id ресторана или блюда
+    private Long restaurantId;
+    private String name;
+    private String restaurantName;
+    private double score;
+
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public Long getRestaurantId() { return restaurantId; }
+    public void setRestaurantId(Long restaurantId) { this.restaurantId = restaurantId; }
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+    public String getRestaurantName() { return restaurantName; }
+    public void setRestaurantName(String restaurantName) { this.restaurantName = restaurantName; }
+    public double getScore() { return score; }
+    public void setScore(double score) { this.score = score; }
+}
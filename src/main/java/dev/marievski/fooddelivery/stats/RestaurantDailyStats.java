@@ -0,0 +1,113 @@
+package dev.marievski.fooddelivery.stats;
+
+import dev.marievski.fooddelivery.common.Money;
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Агрегаты заказов ресторана за день (UTC). Строка только накапливает дельты от RestaurantStatsAccumulator,
+ * поэтому отчёт за период — O(дней), без сканирования orders/order_items.
+ * День — когда произошло событие: создан заказ в этот день, подтверждён в этот день и т.д.
+ */
+@Entity
+@Table(name = "restaurant_daily_stats", indexes = {
+        // PK Hibernate строит в алфавитном порядке полей; отчёт ищет по ресторану и диапазону дней
+        @Index(name = "idx_restaurant_daily_stats_range", columnList = "restaurant_id, stat_day")
+})
+@IdClass(RestaurantDailyStats.Key.class)
+public class RestaurantDailyStats implements Persistable<RestaurantDailyStats.Key> {
+
+    public static class Key implements Serializable {
+        private Long restaurantId;
+        private LocalDate day;
+
+        protected Key() {}
+
+        public Key(Long restaurantId, LocalDate day) {
+            this.restaurantId = Objects.requireNonNull(restaurantId);
+            this.day = Objects.requireNonNull(day);
+        }
+
+        public Long getRestaurantId() { return restaurantId; }
+        public LocalDate getDay() { return day; }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key k && restaurantId.equals(k.restaurantId) && day.equals(k.day);
+        }
+
+        @Override
+        public int hashCode() { return Objects.hash(restaurantId, day); }
+    }
+
+    @Id
+    @Column(name = "restaurant_id")
+    private Long restaurantId;
+
+    @Id
+    @Column(name = "stat_day") // day — зарезервированное слово в H2
+    private LocalDate day;
+
+    @Column(nullable = false)
+    private long createdCount;
+
+    @Column(nullable = false)
+    private long confirmedCount;
+
+    @Column(nullable = false)
+    private long deliveredCount;
+
+    @Column(nullable = false)
+    private long cancelledCount;
+
+    @Column(precision = 14, scale = 2, nullable = false)
+    private BigDecimal grossTotal;      // сумма созданных заказов
+
+    @Column(precision = 14, scale = 2, nullable = false)
+    private BigDecimal cancelledTotal;  // из неё отменено
+
+    @Column(nullable = false)
+    private long etaSum;                // сумма ETA созданных заказов: среднее = etaSum / createdCount
+
+    @Transient
+    private boolean isNew = true;
+
+    protected RestaurantDailyStats() {}
+
+    RestaurantDailyStats(Key key, long[] delta) {
+        this.restaurantId = key.getRestaurantId();
+        this.day = key.getDay();
+        this.createdCount = delta[RestaurantStatsAccumulator.CREATED];
+        this.confirmedCount = delta[RestaurantStatsAccumulator.CONFIRMED];
+        this.deliveredCount = delta[RestaurantStatsAccumulator.DELIVERED];
+        this.cancelledCount = delta[RestaurantStatsAccumulator.CANCELLED];
+        this.grossTotal = Money.toDecimal(delta[RestaurantStatsAccumulator.GROSS_CENTS]);
+        this.cancelledTotal = Money.toDecimal(delta[RestaurantStatsAccumulator.CANCELLED_CENTS]);
+        this.etaSum = delta[RestaurantStatsAccumulator.ETA_SUM];
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() { this.isNew = false; }
+
+    @Override
+    public Key getId() { return new Key(restaurantId, day); }
+
+    @Override
+    public boolean isNew() { return isNew; }
+
+    public Long getRestaurantId() { return restaurantId; }
+    public LocalDate getDay() { return day; }
+    public long getCreatedCount() { return createdCount; }
+    public long getConfirmedCount() { return confirmedCount; }
+    public long getDeliveredCount() { return deliveredCount; }
+    public long getCancelledCount() { return cancelledCount; }
+    public BigDecimal getGrossTotal() { return grossTotal; }
+    public BigDecimal getCancelledTotal() { return cancelledTotal; }
+    public long getEtaSum() { return etaSum; }
+}
@@ -0,0 +1,196 @@
+package dev.marievski.fooddelivery.stats;
+
+import dev.marievski.fooddelivery.common.Money;
+import dev.marievski.fooddelivery.order.OrderCreated;
+import dev.marievski.fooddelivery.order.OrderStatus;
+import dev.marievski.fooddelivery.order.OrderStatusChanged;
+import dev.marievski.fooddelivery.order.OrderSummaryRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Копит дельты restaurant_daily_stats в памяти и сбрасывает их пачкой по расписанию.
+ * <p>
+ * Запросы только увеличивают LongAdder'ы (без локов и без обращений к БД). Счётчики монотонные:
+ * сброс пишет разницу с последним записанным значением, поэтому инкременты во время сброса не теряются,
+ * а при ошибке записи дельта просто уйдёт следующим сбросом.
+ * Для смены статуса ресторан неизвестен (CAS не читает заказ) — такие события копятся в очереди,
+ * и при сбросе ресторан и сумма дочитываются одним IN-запросом по order_summaries.
+ * <p>
+ * Несброшенные дельты живут только в памяти узла: при падении процесса (не штатной остановке) они теряются.
+ */
+@Component
+public class RestaurantStatsAccumulator {
+
+    private static final Logger log = LoggerFactory.getLogger(RestaurantStatsAccumulator.class);
+
+    static final int CREATED = 0;
+    static final int CONFIRMED = 1;
+    static final int DELIVERED = 2;
+    static final int CANCELLED = 3;
+    static final int GROSS_CENTS = 4;
+    static final int CANCELLED_CENTS = 5;
+    static final int ETA_SUM = 6;
+    private static final int FIELDS = 7;
+
+    private final RestaurantStatsRepository stats;
+    private final OrderSummaryRepository summaries;
+    private final TransactionTemplate tx;
+    private final Clock clock = Clock.systemUTC();
+
+    private final Map<RestaurantDailyStats.Key, Counters> counters = new ConcurrentHashMap<>();
+    private final Queue<Transition> transitions = new ConcurrentLinkedQueue<>();
+
+    private record Transition(Long orderId, OrderStatus status, LocalDate day) {}
+
+    private static final class Counters {
+        final LongAdder[] live = new LongAdder[FIELDS];
+        final long[] flushed = new long[FIELDS]; // трогает только flush()
+
+        Counters() {
+            for (int i = 0; i < FIELDS; i++) live[i] = new LongAdder();
+        }
+
+        void add(int field, long value) { live[field].add(value); }
+    }
+
+    public RestaurantStatsAccumulator(RestaurantStatsRepository stats, OrderSummaryRepository summaries,
+                                      TransactionTemplate tx) {
+        this.stats = stats;
+        this.summaries = summaries;
+        this.tx = tx;
+    }
+
+    @TransactionalEventListener
+    public void onCreated(OrderCreated event) {
+        if (event.restaurantId() == null) return;
+        Counters c = countersFor(event.restaurantId(), day(event.createdAt()));
+        c.add(CREATED, 1);
+        c.add(GROSS_CENTS, event.totalCents());
+        c.add(ETA_SUM, event.etaMinutes());
+    }
+
+    @TransactionalEventListener
+    public void onStatusChanged(OrderStatusChanged event) {
+        switch (event.status()) {
+            case CONFIRMED, DELIVERED, CANCELLED ->
+                    transitions.add(new Transition(event.orderId(), event.status(), day(clock.instant())));
+            default -> { } // промежуточные статусы в отчёт не входят
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.stats.flush-interval:PT5S}")
+    @PreDestroy
+    public synchronized void flush() {
+        try {
+            resolveTransitions();
+
+            List<Map.Entry<RestaurantDailyStats.Key, long[]>> deltas = new ArrayList<>();
+            for (Map.Entry<RestaurantDailyStats.Key, Counters> e : counters.entrySet()) {
+                long[] delta = new long[FIELDS];
+                boolean any = false;
+                for (int i = 0; i < FIELDS; i++) {
+                    delta[i] = e.getValue().live[i].sum() - e.getValue().flushed[i];
+                    any |= delta[i] != 0;
+                }
+                if (any) deltas.add(Map.entry(e.getKey(), delta));
+            }
+            if (!deltas.isEmpty()) {
+                tx.executeWithoutResult(status -> write(deltas));
+                for (Map.Entry<RestaurantDailyStats.Key, long[]> d : deltas) {
+                    long[] flushed = counters.get(d.getKey()).flushed;
+                    for (int i = 0; i < FIELDS; i++) flushed[i] += d.getValue()[i];
+                }
+            }
+            evictOldDays();
+        } catch (RuntimeException e) {
+            log.warn("Restaurant stats flush failed, will retry: {}", e.toString());
+        }
+    }
+
+    private void write(List<Map.Entry<RestaurantDailyStats.Key, long[]>> deltas) {
+        for (Map.Entry<RestaurantDailyStats.Key, long[]> d : deltas) {
+            RestaurantDailyStats.Key key = d.getKey();
+            long[] v = d.getValue();
+            int updated = stats.addDeltas(key.getRestaurantId(), key.getDay(),
+                    v[CREATED], v[CONFIRMED], v[DELIVERED], v[CANCELLED],
+                    Money.toDecimal(v[GROSS_CENTS]), Money.toDecimal(v[CANCELLED_CENTS]), v[ETA_SUM]);
+            if (updated == 0) {
+                // первая запись за день; если параллельно вставил другой узел — транзакция упадёт и повторится
+                stats.save(new RestaurantDailyStats(key, v));
+            }
+        }
+    }
+
+    /** Переносит накопленные смены статуса в счётчики: ресторан и сумма — одним запросом на пачку. */
+    private void resolveTransitions() {
+        List<Transition> batch = new ArrayList<>();
+        for (Transition t; (t = transitions.poll()) != null; ) batch.add(t);
+        if (batch.isEmpty()) return;
+
+        Map<Long, OrderSummaryRepository.RestaurantAndTotal> byOrder = new HashMap<>();
+        try {
+            for (OrderSummaryRepository.RestaurantAndTotal row :
+                    summaries.findRestaurantAndTotalByOrderIdIn(batch.stream().map(Transition::orderId).toList())) {
+                byOrder.put(row.getOrderId(), row);
+            }
+        } catch (RuntimeException e) {
+            transitions.addAll(batch); // вернём в очередь — разберём следующим сбросом
+            throw e;
+        }
+
+        for (Transition t : batch) {
+            OrderSummaryRepository.RestaurantAndTotal row = byOrder.get(t.orderId());
+            if (row == null || row.getRestaurantId() == null) continue;
+            Counters c = countersFor(row.getRestaurantId(), t.day());
+            switch (t.status()) {
+                case CONFIRMED -> c.add(CONFIRMED, 1);
+                case DELIVERED -> c.add(DELIVERED, 1);
+                case CANCELLED -> {
+                    c.add(CANCELLED, 1);
+                    c.add(CANCELLED_CENTS, Money.ofDecimal(row.getTotal()));
+                }
+                default -> { }
+            }
+        }
+    }
+
+    /** Прошедшие дни больше не пополняются (события датируются «сейчас») — после сброса их счётчики не нужны. */
+    private void evictOldDays() {
+        LocalDate cutoff = LocalDate.now(clock).minusDays(1);
+        counters.entrySet().removeIf(e -> e.getKey().getDay().isBefore(cutoff) && fullyFlushed(e.getValue()));
+    }
+
+    private static boolean fullyFlushed(Counters c) {
+        for (int i = 0; i < FIELDS; i++) {
+            if (c.live[i].sum() != c.flushed[i]) return false;
+        }
+        return true;
+    }
+
+    private Counters countersFor(Long restaurantId, LocalDate day) {
+        return counters.computeIfAbsent(new RestaurantDailyStats.Key(restaurantId, day), k -> new Counters());
+    }
+
+    private static LocalDate day(Instant instant) {
+        return LocalDate.ofInstant(instant, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,28 @@
+package dev.marievski.fooddelivery.stats;
+
+import dev.marievski.fooddelivery.stats.dto.RestaurantStatsDto;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+
+@RestController
+public class RestaurantStatsController {
+
+    private final RestaurantStatsService service;
+
+    public RestaurantStatsController(RestaurantStatsService service) {
+        this.service = service;
+    }
+
+    /** Дневные агрегаты ресторана (UTC); данные отстают от заказов на интервал сброса app.stats.flush-interval. */
+    @GetMapping("/restaurants/{id}/stats")
+    public RestaurantStatsDto stats(@PathVariable Long id,
+                                    @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                    @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return service.forRange(id, from, to);
+    }
+}
@@ -0,0 +1,47 @@
+package dev.marievski.fooddelivery.stats;
+
+import dev.marievski.fooddelivery.stats.dto.DailyStatsDto;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+public interface RestaurantStatsRepository extends JpaRepository<RestaurantDailyStats, RestaurantDailyStats.Key> {
+
+    @Query("""
+            SELECT new dev.marievski.fooddelivery.stats.dto.DailyStatsDto(
+                s.day, s.createdCount, s.confirmedCount, s.deliveredCount, s.cancelledCount,
+                s.grossTotal, s.cancelledTotal, s.etaSum)
+            FROM RestaurantDailyStats s
+            WHERE s.restaurantId = :restaurantId AND s.day BETWEEN :from AND :to
+            ORDER BY s.day""")
+    List<DailyStatsDto> findRange(@Param("restaurantId") Long restaurantId,
+                                  @Param("from") LocalDate from,
+                                  @Param("to") LocalDate to);
+
+    /** Прибавить дельты к существующей строке; 0 — строки ещё нет (тогда вставляем). */
+    @Modifying
+    @Query("""
+            UPDATE RestaurantDailyStats s SET
+                s.createdCount = s.createdCount + :created,
+                s.confirmedCount = s.confirmedCount + :confirmed,
+                s.deliveredCount = s.deliveredCount + :delivered,
+                s.cancelledCount = s.cancelledCount + :cancelled,
+                s.grossTotal = s.grossTotal + :gross,
+                s.cancelledTotal = s.cancelledTotal + :cancelledTotal,
+                s.etaSum = s.etaSum + :etaSum
+            WHERE s.restaurantId = :restaurantId AND s.day = :day""")
+    int addDeltas(@Param("restaurantId") Long restaurantId,
+                  @Param("day") LocalDate day,
+                  @Param("created") long created,
+                  @Param("confirmed") long confirmed,
+                  @Param("delivered") long delivered,
+                  @Param("cancelled") long cancelled,
+                  @Param("gross") BigDecimal gross,
+                  @Param("cancelledTotal") BigDecimal cancelledTotal,
+                  @Param("etaSum") long etaSum);
+}
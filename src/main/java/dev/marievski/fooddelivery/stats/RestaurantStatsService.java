@@ -0,0 +1,63 @@
+package dev.marievski.fooddelivery.stats;
+
+import dev.marievski.fooddelivery.common.ApiBadRequestException;
+import dev.marievski.fooddelivery.restaurant.RestaurantService;
+import dev.marievski.fooddelivery.stats.dto.DailyStatsDto;
+import dev.marievski.fooddelivery.stats.dto.RestaurantStatsDto;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+@Service
+public class RestaurantStatsService {
+
+    private static final int DEFAULT_DAYS = 30;
+    private static final int MAX_DAYS = 366;
+
+    private final RestaurantStatsRepository stats;
+    private final RestaurantService restaurants;
+
+    public RestaurantStatsService(RestaurantStatsRepository stats, RestaurantService restaurants) {
+        this.stats = stats;
+        this.restaurants = restaurants;
+    }
+
+    /** Отчёт за [from, to] включительно (UTC-дни); по умолчанию — последние 30 дней. */
+    @Transactional(readOnly = true)
+    public RestaurantStatsDto forRange(Long restaurantId, LocalDate from, LocalDate to) {
+        restaurants.getOrThrow(restaurantId);
+
+        LocalDate end = to != null ? to : LocalDate.now(ZoneOffset.UTC);
+        LocalDate start = from != null ? from : end.minusDays(DEFAULT_DAYS - 1);
+        if (start.isAfter(end)) {
+            throw new ApiBadRequestException("BAD_RANGE", "from must not be after to");
+        }
+        if (ChronoUnit.DAYS.between(start, end) >= MAX_DAYS) {
+            throw new ApiBadRequestException("BAD_RANGE", "Range must not exceed " + MAX_DAYS + " days");
+        }
+
+        List<DailyStatsDto> days = stats.findRange(restaurantId, start, end);
+        return new RestaurantStatsDto(restaurantId, start, end, total(days), days);
+    }
+
+    private static DailyStatsDto total(List<DailyStatsDto> days) {
+        long created = 0, confirmed = 0, delivered = 0, cancelled = 0, etaSum = 0;
+        BigDecimal gross = BigDecimal.ZERO;
+        BigDecimal cancelledTotal = BigDecimal.ZERO;
+        for (DailyStatsDto d : days) {
+            created += d.getCreated();
+            confirmed += d.getConfirmed();
+            delivered += d.getDelivered();
+            cancelled += d.getCancelled();
+            etaSum += d.getEtaSum();
+            gross = gross.add(d.getGrossTotal());
+            cancelledTotal = cancelledTotal.add(d.getCancelledTotal());
+        }
+        return new DailyStatsDto(null, created, confirmed, delivered, cancelled, gross, cancelledTotal, etaSum);
+    }
+}
@@ -0,0 +1,55 @@
+package dev.marievski.fooddelivery.stats.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public class DailyStatsDto {
+    private LocalDate day;              // null — итог за период
+    private long created;
+    private long confirmed;
+    private long delivered;
+    private long cancelled;
+    private BigDecimal grossTotal;
+    private BigDecimal cancelledTotal;
+    private Double avgEtaMinutes;       // null — заказов не было
+    private long etaSum;
+
+    public DailyStatsDto() {}
+
+    /** Для JPQL constructor expression. */
+    public DailyStatsDto(LocalDate day, long created, long confirmed, long delivered, long cancelled,
+                         BigDecimal grossTotal, BigDecimal cancelledTotal, long etaSum) {
+        this.day = day;
+        this.created = created;
+        this.confirmed = confirmed;
+        this.delivered = delivered;
+        this.cancelled = cancelled;
+        this.grossTotal = grossTotal;
+        this.cancelledTotal = cancelledTotal;
+        this.etaSum = etaSum;
+        this.avgEtaMinutes = created > 0 ? (double) etaSum / created : null;
+    }
+
+    public LocalDate getDay() { return day; }
+    public void setDay(LocalDate day) { this.day = day; }
+    public long getCreated() { return created; }
+    public void setCreated(long created) { this.created = created; }
+    public long getConfirmed() { return confirmed; }
+    public void setConfirmed(long confirmed) { this.confirmed = confirmed; }
+    public long getDelivered() { return delivered; }
+    public void setDelivered(long delivered) { this.delivered = delivered; }
+    public long getCancelled() { return cancelled; }
+    public void setCancelled(long cancelled) { this.cancelled = cancelled; }
+    public BigDecimal getGrossTotal() { return grossTotal; }
+    public void setGrossTotal(BigDecimal grossTotal) { this.grossTotal = grossTotal; }
+    public BigDecimal getCancelledTotal() { return cancelledTotal; }
+    public void setCancelledTotal(BigDecimal cancelledTotal) { this.cancelledTotal = cancelledTotal; }
+    public Double getAvgEtaMinutes() { return avgEtaMinutes; }
+    public void setAvgEtaMinutes(Double avgEtaMinutes) { this.avgEtaMinutes = avgEtaMinutes; }
+
+    /** Нужна только для свёртки итога, в JSON не отдаём. */
+    @JsonIgnore
+    public long getEtaSum() { return etaSum; }
+}
@@ -0,0 +1,34 @@
+package dev.marievski.fooddelivery.stats.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public class RestaurantStatsDto {
+    private Long restaurantId;
+    private LocalDate from;
+    private LocalDate to;
+    private DailyStatsDto total;
+    private List<DailyStatsDto> days; // только дни, в которые что-то было
+
+    public RestaurantStatsDto() {}
+
+    public RestaurantStatsDto(Long restaurantId, LocalDate from, LocalDate to,
+                              DailyStatsDto total, List<DailyStatsDto> days) {
+        this.restaurantId = restaurantId;
+        this.from = from;
+        this.to = to;
+        this.total = total;
+        this.days = days;
+    }
+
+    public Long getRestaurantId() { return restaurantId; }
+    public void setRestaurantId(Long restaurantId) { this.restaurantId = restaurantId; }
+    public LocalDate getFrom() { return from; }
+    public void setFrom(LocalDate from) { this.from = from; }
+    public LocalDate getTo() { return to; }
+    public void setTo(LocalDate to) { this.to = to; }
+    public DailyStatsDto getTotal() { return total; }
+    public void setTotal(DailyStatsDto total) { this.total = total; }
+    public List<DailyStatsDto> getDays() { return days; }
+    public void setDays(List<DailyStatsDto> days) { this.days = days; }
+}
@@ -0,0 +1,84 @@
+package dev.marievski.fooddelivery;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.StringJoiner;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Общие шаги тестов через API: пользователь, ресторан, блюдо, корзина, заказ.
+ * Тесты делят один контекст и одну H2, поэтому email пользователя уникален на каждый вызов.
+ */
+public final class ApiFixture {
+
+    private final MockMvc mvc;
+    private final ObjectMapper om;
+
+    public ApiFixture(MockMvc mvc, ObjectMapper om) {
+        this.mvc = mvc;
+        this.om = om;
+    }
+
+    public long user(String name) throws Exception {
+        return id(postJson("/users", """
+                {"name":"%s","email":"user-%d@example.com","role":"CUSTOMER"}
+                """.formatted(name, System.nanoTime())));
+    }
+
+    public long restaurant(String name) throws Exception {
+        return restaurant(name, "ITALIAN", true);
+    }
+
+    public long restaurant(String name, String cuisine, boolean open) throws Exception {
+        return id(postJson("/restaurants", """
+                {"name":"%s","cuisine":"%s","open":%s}
+                """.formatted(name, cuisine, open)));
+    }
+
+    /** Блюдо с доступными вариациями по ценам (как в JSON, например "350.00"); ответ целиком — id блюда и вариаций. */
+    public JsonNode dish(long restaurantId, String name, String... prices) throws Exception {
+        StringJoiner variations = new StringJoiner(",");
+        for (int i = 0; i < prices.length; i++) {
+            variations.add("""
+                    {"label":"V%d","price":%s,"cookingMinutes":10,"available":true}""".formatted(i + 1, prices[i]));
+        }
+        return om.readTree(postJson("/restaurants/" + restaurantId + "/menu", """
+                {"name":"%s","description":"d","variations":[%s]}
+                """.formatted(name, variations)));
+    }
+
+    /** Новое блюдо с одной вариацией — её id. */
+    public long variation(long restaurantId, String price) throws Exception {
+        return dish(restaurantId, "Dish", price).get("variations").get(0).get("id").asLong();
+    }
+
+    public void addToCart(long userId, long variationId, int quantity) throws Exception {
+        postJson("/cart/items", """
+                {"userId": %d, "variationId": %d, "quantity": %d}
+                """.formatted(userId, variationId, quantity));
+    }
+
+    /** Оформить текущую корзину пользователя — id заказа. */
+    public long order(long userId) throws Exception {
+        return id(postJson("/orders", """
+                {"userId": %d}
+                """.formatted(userId)));
+    }
+
+    public long id(String json) throws Exception {
+        return om.readTree(json).get("id").asLong();
+    }
+
+    private String postJson(String url, String body) throws Exception {
+        return mvc.perform(post(url)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+}
@@ -0,0 +1,75 @@
+package dev.marievski.fooddelivery.archive;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.marievski.fooddelivery.ApiFixture;
+import dev.marievski.fooddelivery.order.OrderRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Архивация: завершённый заказ уезжает из горячих таблиц вместе с позициями и оплатами,
+ * а чтение по id продолжает работать через архив.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class OrderArchiverTest {
+
+    @Autowired MockMvc mvc;
+    @Autowired ObjectMapper om;
+    @Autowired OrderArchiver archiver;
+    @Autowired OrderRepository orders;
+
+    @Test
+    void cancelledOrder_isArchived_andStillReadable() throws Exception {
+        ApiFixture api = new ApiFixture(mvc, om);
+        long userId = api.user("A");
+        api.addToCart(userId, api.variation(api.restaurant("Archive"), "350.00"), 2);
+        long orderId = api.order(userId);
+
+        mvc.perform(post("/payments")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                { "orderId": %d, "amount": 700.00, "externalId": "arch-1" }
+                                """.formatted(orderId)))
+                .andExpect(status().isOk());
+        mvc.perform(delete("/orders/{id}", orderId))
+                .andExpect(status().isOk());
+
+        assertTrue(archiver.archiveCreatedBefore(Instant.now().plus(Duration.ofMinutes(1))) >= 1);
+        assertFalse(orders.existsById(orderId));
+
+        mvc.perform(get("/orders/{id}", orderId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status", is("CANCELLED")))
+                .andExpect(jsonPath("$.userId", is((int) userId)))
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.items[0].quantity", is(2)));
+
+        mvc.perform(get("/payments").param("orderId", String.valueOf(orderId)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].externalId", is("arch-1")));
+
+        // externalId уникален и с учётом архива
+        mvc.perform(post("/payments")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                { "orderId": %d, "amount": 700.00, "externalId": "arch-1" }
+                                """.formatted(orderId)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.code", is("DUPLICATE_EXTERNAL_ID")));
+    }
+}
@@ -0,0 +1,75 @@
+package dev.marievski.fooddelivery.cart;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.marievski.fooddelivery.ApiFixture;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * POST /cart/items:batch: повторы вариаций схлопываются, правила корзины проверяются на всю пачку.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class CartBatchAddTest {
+
+    @Autowired MockMvc mvc;
+    @Autowired ObjectMapper om;
+
+    @Test
+    void batch_mergesLines_andRejectsForeignRestaurantAtomically() throws Exception {
+        ApiFixture api = new ApiFixture(mvc, om);
+        long userId = api.user("B");
+        JsonNode first = api.dish(api.restaurant("First"), "Dish", "350.00", "200.00");
+        long small = first.get("variations").get(0).get("id").asLong();
+        long large = first.get("variations").get(1).get("id").asLong();
+        long foreign = api.variation(api.restaurant("Second"), "350.00");
+
+        // 1) одна вариация дважды + другая: две строки, количества сложены
+        mvc.perform(post("/cart/items:batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"userId": %d, "items": [
+                                  {"variationId": %d, "quantity": 1},
+                                  {"variationId": %d, "quantity": 1},
+                                  {"variationId": %d, "quantity": 2}
+                                ]}
+                                """.formatted(userId, small, large, small)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(2)))
+                .andExpect(jsonPath("$.subtotal", is(1250.0)));
+
+        // 2) в пачке блюдо другого ресторана — 409, ничего не добавлено
+        mvc.perform(post("/cart/items:batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"userId": %d, "items": [
+                                  {"variationId": %d, "quantity": 1},
+                                  {"variationId": %d, "quantity": 1}
+                                ]}
+                                """.formatted(userId, large, foreign)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.code", is("CART_RESTAURANT_MISMATCH")));
+
+        mvc.perform(get("/cart").param("userId", String.valueOf(userId)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.subtotal", is(1250.0)));
+
+        // 3) неизвестная вариация — 400 с кодом
+        mvc.perform(post("/cart/items:batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"userId": %d, "items": [{"variationId": %d, "quantity": 1}]}
+                                """.formatted(userId, Long.MAX_VALUE)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.code", is("VARIATION_NOT_FOUND")));
+    }
+}
@@ -0,0 +1,66 @@
+package dev.marievski.fooddelivery.cart;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.marievski.fooddelivery.ApiFixture;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Параллельные добавления одной вариации в одну корзину: одна строка, ни одно увеличение не потеряно.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class CartConcurrentAddTest {
+
+    private static final int THREADS = 8;
+    private static final int ADDS_PER_THREAD = 5;
+
+    @Autowired MockMvc mvc;
+    @Autowired ObjectMapper om;
+    @Autowired CartService cartService;
+
+    @Test
+    void concurrentAdds_sameVariation_singleLineWithFullQuantity() throws Exception {
+        ApiFixture api = new ApiFixture(mvc, om);
+        long userId = api.user("Race");
+        long variationId = api.variation(api.restaurant("Race"), "150.50");
+
+        cartService.getOrCreateActiveCart(userId);
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < ADDS_PER_THREAD; i++) {
+                    cartService.addItem(userId, variationId, 1);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> f : futures) f.get();
+        pool.shutdown();
+
+        Cart cart = cartService.getOrCreateActiveCart(userId);
+        int expected = THREADS * ADDS_PER_THREAD;
+        assertEquals(1, cart.getItems().size());
+        assertEquals(expected, cart.getItems().get(0).getQuantity());
+        assertEquals(expected, cart.getTotalQuantity());
+        assertEquals(new BigDecimal("150.50").multiply(BigDecimal.valueOf(expected)), cart.getSubtotal());
+    }
+}
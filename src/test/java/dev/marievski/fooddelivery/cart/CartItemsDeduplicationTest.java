@@ -0,0 +1,43 @@
+package dev.marievski.fooddelivery.cart;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CartItemsDeduplicationTest {
+
+    @Test
+    void mergesDuplicateLines_soUniqueKeyCanBeAdded() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:cart-dedup;DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        // старая схема: ключа ещё нет, строки одной вариации повторяются
+        jdbc.execute("""
+                CREATE TABLE cart_items (id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                    cart_id BIGINT NOT NULL, variation_id BIGINT NOT NULL, quantity INT NOT NULL)""");
+        jdbc.update("INSERT INTO cart_items (cart_id, variation_id, quantity) VALUES "
+                + "(1, 10, 1), (1, 10, 2), (1, 11, 1), (2, 10, 4), (1, 10, 3)");
+
+        new CartItemsDeduplication(dataSource);
+
+        List<Map<String, Object>> rows = jdbc.queryForList(
+                "SELECT id, cart_id, variation_id, quantity FROM cart_items ORDER BY id");
+        assertEquals(3, rows.size());
+        assertEquals(List.of(1L, 3L, 4L), rows.stream().map(r -> ((Number) r.get("ID")).longValue()).toList());
+        assertEquals(List.of(6, 1, 4), rows.stream().map(r -> ((Number) r.get("QUANTITY")).intValue()).toList());
+        jdbc.execute("ALTER TABLE cart_items ADD CONSTRAINT uk_cart_items_cart_variation UNIQUE (cart_id, variation_id)");
+
+        new CartItemsDeduplication(dataSource); // дублей нет — ничего не делает
+        assertEquals(3, jdbc.queryForObject("SELECT COUNT(*) FROM cart_items", Integer.class));
+    }
+
+    @Test
+    void skipsFreshDatabaseWithoutTable() {
+        assertDoesNotThrow(() -> new CartItemsDeduplication(
+                new DriverManagerDataSource("jdbc:h2:mem:cart-dedup-empty;DB_CLOSE_DELAY=-1")));
+    }
+}
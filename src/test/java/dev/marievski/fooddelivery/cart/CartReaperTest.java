@@ -0,0 +1,67 @@
+package dev.marievski.fooddelivery.cart;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.marievski.fooddelivery.ApiFixture;
+import dev.marievski.fooddelivery.order.OrderService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Чистка корзин: оформленная уходит по своему сроку, активная — только по сроку брошенной, вместе с позициями.
+ * Контекст и H2 общие с другими тестами: состарены только свои корзины, а сроки — обычные (дни), поэтому
+ * свежие корзины других тестов под чистку не попадают.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class CartReaperTest {
+
+    @Autowired MockMvc mvc;
+    @Autowired ObjectMapper om;
+    @Autowired CartService cartService;
+    @Autowired OrderService orderService;
+    @Autowired CartRepository carts;
+    @Autowired CartItemRepository items;
+    @Autowired CartReaper reaper;
+    @Autowired JdbcTemplate jdbc;
+
+    @Test
+    void reap_removesCheckedOutThenAbandonedCarts() throws Exception {
+        ApiFixture api = new ApiFixture(mvc, om);
+        long userId = api.user("Reaper");
+        long variationId = api.variation(api.restaurant("Reaper"), "400.00");
+
+        Long checkedOut = cartService.addItem(userId, variationId, 1).getId();
+        orderService.createFromCart(userId);
+        Long abandoned = cartService.addItem(userId, variationId, 2).getId();
+        assertNotEquals(checkedOut, abandoned);
+
+        Instant inactiveCutoff = Instant.now().minus(Duration.ofDays(7));
+        Instant abandonedCutoff = Instant.now().minus(Duration.ofDays(30));
+
+        age(checkedOut, Duration.ofDays(8));
+        age(abandoned, Duration.ofDays(8)); // для активной ещё не срок
+        assertEquals(1, reaper.reap(inactiveCutoff, abandonedCutoff));
+        assertFalse(carts.existsById(checkedOut));
+        assertTrue(carts.existsById(abandoned));
+
+        age(abandoned, Duration.ofDays(31));
+        assertEquals(1, reaper.reap(inactiveCutoff, abandonedCutoff));
+        assertFalse(carts.existsById(abandoned));
+        assertTrue(items.findAll().stream().noneMatch(i -> i.getVariation().getId() == variationId));
+    }
+
+    private void age(Long cartId, Duration age) {
+        Timestamp at = Timestamp.from(Instant.now().minus(age));
+        jdbc.update("UPDATE carts SET created_at = ?, updated_at = ? WHERE id = ?", at, at, cartId);
+    }
+}
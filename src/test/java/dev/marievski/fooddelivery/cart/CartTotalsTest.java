@@ -0,0 +1,113 @@
+package dev.marievski.fooddelivery.cart;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.marievski.fooddelivery.ApiFixture;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Накопительные итоги корзины: меняются вместе с позициями (add/update/remove), расхождение чинится
+ * при оформлении (verifyTotals), корзины без итогов заполняет CartTotalsBackfill.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class CartTotalsTest {
+
+    @Autowired MockMvc mvc;
+    @Autowired ObjectMapper om;
+    @Autowired CartService cartService;
+    @Autowired CartRepository carts;
+    @Autowired CartTotalsBackfill backfill;
+    @Autowired JdbcTemplate jdbc;
+
+    @Test
+    void totals_followAddUpdateRemove() throws Exception {
+        ApiFixture api = new ApiFixture(mvc, om);
+        long userId = api.user("Totals");
+        JsonNode dish = api.dish(api.restaurant("Totals"), "Dish", "350.00", "120.50");
+        long large = dish.get("variations").get(0).get("id").asLong();
+        long small = dish.get("variations").get(1).get("id").asLong();
+
+        api.addToCart(userId, large, 1);
+        api.addToCart(userId, small, 2);
+        api.addToCart(userId, large, 1);
+        assertTotals(userId, "941.00", 4);
+
+        JsonNode items = cart(userId).get("items");
+        long largeItem = itemId(items, large);
+        long smallItem = itemId(items, small);
+
+        cartService.updateItemQuantity(smallItem, 3);
+        assertTotals(userId, "1061.50", 5);
+        cartService.updateItemQuantity(largeItem, 0); // qty<=0 — удаление
+        assertTotals(userId, "361.50", 3);
+        cartService.removeItem(smallItem);
+        assertTotals(userId, "0.00", 0);
+        mvc.perform(get("/cart").param("userId", String.valueOf(userId)))
+                .andExpect(jsonPath("$.items", hasSize(0)));
+    }
+
+    @Test
+    void checkout_repairsDriftedTotals() throws Exception {
+        ApiFixture api = new ApiFixture(mvc, om);
+        long userId = api.user("Drift");
+        api.addToCart(userId, api.variation(api.restaurant("Drift"), "350.00"), 2);
+        // итоги разъехались с позициями (например, правка мимо сервиса) — меньше минимальной суммы заказа
+        driftTotals(userId, "100.00", 1);
+
+        long orderId = api.order(userId);
+        mvc.perform(get("/orders/{id}", orderId))
+                .andExpect(jsonPath("$.total", is(700.0)))
+                .andExpect(jsonPath("$.items[0].quantity", is(2)));
+    }
+
+    @Test
+    void backfill_fillsCartsWithoutTotals() throws Exception {
+        ApiFixture api = new ApiFixture(mvc, om);
+        long userId = api.user("Backfill");
+        api.addToCart(userId, api.variation(api.restaurant("Backfill"), "350.00"), 3);
+        // корзина собрана до появления колонок итогов — там значения по умолчанию
+        driftTotals(userId, "0.00", 0);
+
+        backfill.backfill();
+        assertTotals(userId, "1050.00", 3);
+        Cart cart = carts.findByUserIdAndActiveTrue(userId).orElseThrow();
+        assertEquals(30, cart.getCookingMinutesSum());
+    }
+
+    private void driftTotals(long userId, String subtotal, int quantity) {
+        jdbc.update("UPDATE carts SET subtotal = ?, total_quantity = ?, cooking_minutes_sum = 0 "
+                        + "WHERE user_id = ? AND active = true",
+                new BigDecimal(subtotal), quantity, userId);
+    }
+
+    private void assertTotals(long userId, String subtotal, int quantity) {
+        Cart cart = carts.findByUserIdAndActiveTrue(userId).orElseThrow();
+        assertEquals(new BigDecimal(subtotal), cart.getSubtotal());
+        assertEquals(quantity, cart.getTotalQuantity());
+    }
+
+    private JsonNode cart(long userId) throws Exception {
+        return om.readTree(mvc.perform(get("/cart").param("userId", String.valueOf(userId)))
+                .andReturn().getResponse().getContentAsString());
+    }
+
+    private static long itemId(JsonNode items, long variationId) {
+        for (JsonNode item : items) {
+            if (item.get("variationId").asLong() == variationId) return item.get("id").asLong();
+        }
+        throw new AssertionError("Нет позиции с вариацией " + variationId);
+    }
+}
@@ -0,0 +1,71 @@
+package dev.marievski.fooddelivery.cart;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.marievski.fooddelivery.ApiFixture;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * app.carts.storage=memory с коротким TTL: корзину постоянно вытесняют, пока пользователь добавляет позиции.
+ * Загрузка после вытеснения дожидается записи вытесненной копии — иначе свежая копия, прочитанная до этой записи,
+ * перезаписала бы её абсолютными итогами и количествами.
+ */
+@SpringBootTest(properties = {
+        "app.carts.storage=memory",
+        "app.carts.memory.ttl=PT0.005S",
+        "app.carts.memory.flush-interval=PT1H"
+})
+@AutoConfigureMockMvc
+class MemoryCartEvictionTest {
+
+    private static final int THREADS = 4;
+    private static final int ADDS = 100;
+
+    @Autowired MockMvc mvc;
+    @Autowired ObjectMapper om;
+    @Autowired MemoryCartStore store;
+    @Autowired CartService cartService;
+    @Autowired CartRepository carts;
+
+    @Test
+    void evictionWhileAdding_losesNothing() throws Exception {
+        ApiFixture api = new ApiFixture(mvc, om);
+        long userId = api.user("Evicted");
+        long variationId = api.variation(api.restaurant("Evicted"), "10.00");
+
+        CartService.ResolvedLines one = cartService.resolve(List.of(new CartService.CartLine(variationId, 1)));
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> done = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                done.add(pool.submit(() -> {
+                    for (int i = 0; i < ADDS; i++) {
+                        store.add(userId, one);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> f : done) f.get();
+        } finally {
+            pool.shutdown();
+        }
+        store.flushAndEvict(userId);
+
+        List<CartLineRow> rows = carts.findActiveRows(userId);
+        assertEquals(1, rows.size());
+        assertEquals(THREADS * ADDS, rows.get(0).quantity());
+        assertEquals(THREADS * ADDS, rows.get(0).totalQuantity());
+        assertEquals(THREADS * ADDS * 10_00L, rows.get(0).subtotalCents());
+    }
+}
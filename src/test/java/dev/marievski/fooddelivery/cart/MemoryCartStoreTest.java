@@ -0,0 +1,74 @@
+package dev.marievski.fooddelivery.cart;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.marievski.fooddelivery.ApiFixture;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * app.carts.storage=memory: добавления копятся в памяти, в БД уходит одна запись на сброс,
+ * оформление заказа видит всё, что было добавлено.
+ */
+@SpringBootTest(properties = {
+        "app.carts.storage=memory",
+        "app.carts.memory.flush-interval=PT1H" // сбрасываем вручную
+})
+@AutoConfigureMockMvc
+class MemoryCartStoreTest {
+
+    @Autowired MockMvc mvc;
+    @Autowired ObjectMapper om;
+    @Autowired MemoryCartStore store;
+    @Autowired CartRepository carts;
+
+    @Test
+    void adds_areWrittenBehind_andCheckoutFlushes() throws Exception {
+        ApiFixture api = new ApiFixture(mvc, om);
+        long userId = api.user("M");
+        long variationId = api.variation(api.restaurant("Memory"), "100.00");
+
+        for (int i = 0; i < 5; i++) {
+            api.addToCart(userId, variationId, 1);
+        }
+        // в БД пока ничего, читаем из памяти
+        assertTrue(carts.findActiveRows(userId).isEmpty());
+        mvc.perform(get("/cart").param("userId", String.valueOf(userId)))
+                .andExpect(jsonPath("$.subtotal", is(500.0)))
+                .andExpect(jsonPath("$.items[0].quantity", is(5)))
+                .andExpect(jsonPath("$.items[0].id").value(nullValue()));
+
+        // один сброс — одна строка с накопленным количеством
+        store.flushDirty();
+        List<CartLineRow> rows = carts.findActiveRows(userId);
+        assertEquals(1, rows.size());
+        assertEquals(5, rows.get(0).quantity());
+        assertEquals(500_00, rows.get(0).subtotalCents());
+        // после записи корзина в памяти знает id строки
+        mvc.perform(get("/cart").param("userId", String.valueOf(userId)))
+                .andExpect(jsonPath("$.items[0].id", is(rows.get(0).itemId().intValue())));
+
+        // оформление синхронно дописывает то, что ещё в памяти
+        api.addToCart(userId, variationId, 1);
+        mvc.perform(post("/orders")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"userId": %d}
+                                """.formatted(userId)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total", is(600.0)));
+
+        mvc.perform(get("/cart").param("userId", String.valueOf(userId)))
+                .andExpect(jsonPath("$.items", hasSize(0)));
+    }
+}
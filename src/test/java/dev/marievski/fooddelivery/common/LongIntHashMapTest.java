@@ -0,0 +1,21 @@
+package dev.marievski.fooddelivery.common;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongIntHashMapTest {
+
+    @Test
+    void putGet_survivesGrowth() {
+        LongIntHashMap map = new LongIntHashMap(2, -1);
+        for (long id = 1; id <= 10_000; id++) map.put(id, (int) id * 3);
+        map.put(42, 7);
+
+        assertEquals(10_000, map.size());
+        assertEquals(7, map.get(42));
+        assertEquals(30_000, map.get(10_000));
+        assertEquals(-1, map.get(10_001));
+        assertThrows(IllegalArgumentException.class, () -> map.put(0, 1));
+    }
+}
@@ -0,0 +1,95 @@
+package dev.marievski.fooddelivery.common;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH: итог корзины и суммы строк на BigDecimal (как было) против long-копеек {@link Money}.
+ * По умолчанию выключен. Запуск (профайлер gc показывает аллокации на операцию):
+ * <pre>
+ * mvn test -Dtest=MoneyBenchmarkTest -Dbenchmark=true
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoneyBenchmarkTest {
+
+    @Param({"3", "12", "30"})
+    int lines;
+
+    BigDecimal[] decimalPrices;
+    long[] centPrices;
+    int[] quantities;
+
+    @Setup
+    public void setUp() {
+        decimalPrices = new BigDecimal[lines];
+        centPrices = new long[lines];
+        quantities = new int[lines];
+        for (int i = 0; i < lines; i++) {
+            decimalPrices[i] = new BigDecimal("349.90").add(BigDecimal.valueOf(i));
+            centPrices[i] = Money.ofDecimal(decimalPrices[i]);
+            quantities[i] = 1 + i % 3;
+        }
+    }
+
+    /** Прежний CartService.subtotal: multiply + add на каждую строку. */
+    @Benchmark
+    public BigDecimal subtotalBigDecimal() {
+        BigDecimal sum = BigDecimal.ZERO;
+        for (int i = 0; i < lines; i++) {
+            sum = sum.add(decimalPrices[i].multiply(BigDecimal.valueOf(quantities[i])));
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long subtotalCents() {
+        long sum = 0;
+        for (int i = 0; i < lines; i++) {
+            sum = Money.plus(sum, Money.times(centPrices[i], quantities[i]));
+        }
+        return sum;
+    }
+
+    /** Граница DTO: суммы строк для ответа (BigDecimal создаётся только на выходе). */
+    @Benchmark
+    public BigDecimal[] lineTotalsBigDecimal() {
+        BigDecimal[] out = new BigDecimal[lines];
+        for (int i = 0; i < lines; i++) {
+            out[i] = decimalPrices[i].multiply(BigDecimal.valueOf(quantities[i]));
+        }
+        return out;
+    }
+
+    @Benchmark
+    public BigDecimal[] lineTotalsCents() {
+        BigDecimal[] out = new BigDecimal[lines];
+        for (int i = 0; i < lines; i++) {
+            out[i] = Money.toDecimal(Money.times(centPrices[i], quantities[i]));
+        }
+        return out;
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void run() throws Exception {
+        Options options = new OptionsBuilder()
+                .include(MoneyBenchmarkTest.class.getName() + "\\.")
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,25 @@
+package dev.marievski.fooddelivery.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoneyTest {
+
+    @Test
+    void decimalRoundTrip_isExact() {
+        assertEquals(35_000, Money.ofDecimal(new BigDecimal("350")));
+        assertEquals(35_099, Money.ofDecimal(new BigDecimal("350.99")));
+        assertEquals(new BigDecimal("350.99"), Money.toDecimal(35_099));
+        assertEquals(new BigDecimal("1052.97"), Money.toDecimal(Money.times(35_099, 3)));
+    }
+
+    @Test
+    void extraFractionDigits_andOverflow_areRejected() {
+        assertThrows(IllegalArgumentException.class, () -> Money.ofDecimal(new BigDecimal("0.001")));
+        assertThrows(ArithmeticException.class, () -> Money.times(Long.MAX_VALUE, 2));
+        assertThrows(ArithmeticException.class, () -> Money.plus(Long.MAX_VALUE, 1));
+    }
+}
@@ -0,0 +1,112 @@
+package dev.marievski.fooddelivery.order;
+
+import dev.marievski.fooddelivery.cart.CartService;
+import dev.marievski.fooddelivery.common.Cuisine;
+import dev.marievski.fooddelivery.restaurant.MenuItem;
+import dev.marievski.fooddelivery.restaurant.MenuVariation;
+import dev.marievski.fooddelivery.restaurant.Restaurant;
+import dev.marievski.fooddelivery.restaurant.RestaurantService;
+import dev.marievski.fooddelivery.user.User;
+import dev.marievski.fooddelivery.user.UserService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Бенчмарк оформления заказа: латентность createFromCart и вставок в секунду на заказ из 12 позиций.
+ * По умолчанию выключен. Запуск:
+ * <pre>
+ * mvn test -Dtest=CheckoutBenchmarkTest -Dbenchmark=true
+ * mvn test -Dtest=CheckoutBenchmarkTest -Dbenchmark=true -Dspring.profiles.active=postgres
+ * </pre>
+ * Для сравнения "до": {@code -Dspring.jpa.properties.hibernate.jdbc.batch_size=1} выключает батчинг,
+ * либо прогнать тот же тест на коммите с IDENTITY-ключами.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class CheckoutBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(CheckoutBenchmarkTest.class);
+
+    private static final int LINES = 12;
+    private static final int WARMUP = 50;
+    private static final int RUNS = 500;
+
+    @Autowired UserService userService;
+    @Autowired RestaurantService restaurantService;
+    @Autowired CartService cartService;
+    @Autowired OrderService orderService;
+    @Autowired EntityManagerFactory emf;
+
+    @Test
+    void checkout_twelveLines() {
+        User user = new User();
+        user.setName("Bench");
+        user.setEmail("bench-" + System.nanoTime() + "@example.com");
+        Long userId = userService.create(user).getId();
+
+        Restaurant r = new Restaurant();
+        r.setName("Bench");
+        r.setCuisine(Cuisine.OTHER);
+        Long restaurantId = restaurantService.create(r).getId();
+
+        List<MenuVariation> variations = new ArrayList<>();
+        for (int i = 0; i < LINES; i++) {
+            MenuVariation v = new MenuVariation();
+            v.setLabel("V" + i);
+            v.setPrice(BigDecimal.valueOf(100));
+            v.setCookingMinutes(10);
+            variations.add(v);
+        }
+        MenuItem dish = restaurantService.addDish(restaurantId, "Dish", "bench", variations);
+        List<Long> variationIds = dish.getVariations().stream().map(MenuVariation::getId).toList();
+
+        Statistics stats = emf.unwrap(SessionFactory.class).getStatistics();
+
+        for (int i = 0; i < WARMUP; i++) {
+            fillCart(userId, variationIds);
+            orderService.createFromCart(userId);
+        }
+
+        long[] nanos = new long[RUNS];
+        long statements = 0;
+        long inserts = 0;
+        for (int i = 0; i < RUNS; i++) {
+            fillCart(userId, variationIds);
+            stats.clear();
+            long start = System.nanoTime();
+            orderService.createFromCart(userId);
+            nanos[i] = System.nanoTime() - start;
+            statements += stats.getPrepareStatementCount();
+            inserts += stats.getEntityInsertCount();
+        }
+
+        Arrays.sort(nanos);
+        long total = Arrays.stream(nanos).sum();
+        log.info(String.format("checkout x%d (%d lines): p50=%.2fms p99=%.2fms, %.1f statements/checkout, %.0f inserts/s",
+                RUNS, LINES,
+                nanos[RUNS / 2] / 1e6, nanos[(int) (RUNS * 0.99)] / 1e6,
+                (double) statements / RUNS,
+                inserts / (total / 1e9)));
+    }
+
+    private void fillCart(Long userId, List<Long> variationIds) {
+        for (Long variationId : variationIds) {
+            cartService.addItem(userId, variationId, 1);
+        }
+    }
+}
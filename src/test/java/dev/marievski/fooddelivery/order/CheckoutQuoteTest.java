@@ -0,0 +1,82 @@
+package dev.marievski.fooddelivery.order;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.marievski.fooddelivery.ApiFixture;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Котировки: токен из GET /cart?quote=true ускоряет POST /orders, а после изменения меню не спасает от проверок.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class CheckoutQuoteTest {
+
+    @Autowired MockMvc mvc;
+    @Autowired ObjectMapper om;
+    @Autowired MeterRegistry meters;
+
+    @Test
+    void quoteToken_fastPathUntilMenuChanges() throws Exception {
+        ApiFixture api = new ApiFixture(mvc, om);
+        long userId = api.user("Q");
+        long variationId = api.variation(api.restaurant("Quote"), "350.00");
+
+        // 1) котировка -> заказ по быстрому пути
+        api.addToCart(userId, variationId, 1);
+        String token = quote(userId);
+        double hitsBefore = hits();
+        mvc.perform(post("/orders")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"userId": %d, "quoteToken": "%s"}
+                                """.formatted(userId, token)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total", is(350.0)));
+        assertEquals(hitsBefore + 1, hits());
+
+        // 2) меню изменилось после котировки -> полная проверка находит недоступную вариацию
+        api.addToCart(userId, variationId, 1);
+        token = quote(userId);
+        mvc.perform(patch("/menu/{id}/availability", variationId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"available": false}
+                                """))
+                .andExpect(status().isOk());
+        mvc.perform(post("/orders")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"userId": %d, "quoteToken": "%s"}
+                                """.formatted(userId, token)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.code", is("VARIATION_UNAVAILABLE")));
+
+        // 3) корзину нельзя оформить — токен не выдаётся
+        mvc.perform(get("/cart").param("userId", String.valueOf(userId)).param("quote", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.quoteToken").value(nullValue()));
+    }
+
+    private String quote(long userId) throws Exception {
+        return om.readTree(mvc.perform(get("/cart").param("userId", String.valueOf(userId)).param("quote", "true"))
+                        .andExpect(status().isOk())
+                        .andExpect(jsonPath("$.quoteToken", notNullValue()))
+                        .andReturn().getResponse().getContentAsString())
+                .get("quoteToken").asText();
+    }
+
+    private double hits() {
+        return meters.counter("orders.checkout.quote", "result", "hit").count();
+    }
+}
@@ -0,0 +1,100 @@
+package dev.marievski.fooddelivery.order;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.marievski.fooddelivery.ApiFixture;
+import dev.marievski.fooddelivery.restaurant.MenuVariation;
+import dev.marievski.fooddelivery.restaurant.Restaurant;
+import dev.marievski.fooddelivery.user.User;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * GET /orders/export: NDJSON по возрастанию id, фильтры и границы id; больше одной порции очистки
+ * persistence context (CLEAR_EVERY) — позиции заказов после очистки по-прежнему на месте.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class OrderExportTest {
+
+    private static final int ORDERS = 260;
+
+    @Autowired MockMvc mvc;
+    @Autowired ObjectMapper om;
+    @Autowired OrderRepository orders;
+    @Autowired EntityManager em;
+    @Autowired TransactionTemplate tx;
+
+    @Test
+    void export_streamsFilteredOrdersInIdOrder() throws Exception {
+        ApiFixture api = new ApiFixture(mvc, om);
+        long userId = api.user("Export");
+        long restaurantId = api.restaurant("Export");
+        long variationId = api.variation(restaurantId, "300.00");
+        // заказы пачкой напрямую: через корзину 260 оформлений — слишком долго для теста
+        List<Long> ids = tx.execute(status -> {
+            List<Order> batch = new ArrayList<>();
+            for (int i = 0; i < ORDERS; i++) {
+                Order order = new Order();
+                order.setUser(em.getReference(User.class, userId));
+                order.setStatus(i == 1 ? OrderStatus.CANCELLED : OrderStatus.NEW);
+                order.addItem(em.getReference(Restaurant.class, restaurantId),
+                        em.find(MenuVariation.class, variationId), 1 + i % 3);
+                batch.add(order);
+            }
+            return orders.saveAll(batch).stream().map(Order::getId).toList();
+        });
+
+        MvcResult all = mvc.perform(get("/orders/export").param("userId", String.valueOf(userId)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertEquals(3_600_000L, all.getRequest().getAsyncContext().getTimeout()); // app.orders.export.timeout
+        List<JsonNode> lines = export(all);
+        assertEquals(ids, lines.stream().map(o -> o.get("id").asLong()).toList());
+        for (int i = 0; i < ORDERS; i++) {
+            assertEquals(1 + i % 3, lines.get(i).get("items").get(0).get("quantity").asInt());
+        }
+
+        List<JsonNode> range = export(get("/orders/export")
+                .param("userId", String.valueOf(userId))
+                .param("fromId", String.valueOf(ids.get(1)))
+                .param("toId", String.valueOf(ids.get(3))));
+        assertEquals(ids.subList(1, 4), range.stream().map(o -> o.get("id").asLong()).toList());
+
+        List<JsonNode> cancelled = export(get("/orders/export")
+                .param("userId", String.valueOf(userId))
+                .param("status", "CANCELLED"));
+        assertEquals(List.of(ids.get(1)), cancelled.stream().map(o -> o.get("id").asLong()).toList());
+    }
+
+    private List<JsonNode> export(MockHttpServletRequestBuilder request) throws Exception {
+        return export(mvc.perform(request).andExpect(request().asyncStarted()).andReturn());
+    }
+
+    private List<JsonNode> export(MvcResult started) throws Exception {
+        String body = mvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : body.split("\n")) {
+            if (!line.isBlank()) lines.add(om.readTree(line));
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,120 @@
+package dev.marievski.fooddelivery.order;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.marievski.fooddelivery.ApiFixture;
+import dev.marievski.fooddelivery.archive.OrderArchiver;
+import dev.marievski.fooddelivery.order.dto.OrderDto;
+import dev.marievski.fooddelivery.order.mapper.OrderMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Idempotency-Key на POST /orders: повтор отдаёт тот же заказ (в том числе из архива) и не трогает корзину,
+ * чужой ключ — 409, параллельный дубль дожидается победителя и получает его заказ.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class OrderIdempotencyTest {
+
+    @Autowired MockMvc mvc;
+    @Autowired ObjectMapper om;
+    @Autowired OrderIdempotencyService idempotency;
+    @Autowired OrderService orderService;
+    @Autowired OrderMapper orderMapper;
+    @Autowired OrderArchiver archiver;
+    @Autowired OrderIdempotencyKeyRepository keys;
+
+    @Test
+    void replay_returnsSameOrder_evenFromArchive() throws Exception {
+        ApiFixture api = new ApiFixture(mvc, om);
+        long userId = api.user("Idem");
+        long variationId = api.variation(api.restaurant("Idem"), "350.00");
+        api.addToCart(userId, variationId, 1);
+
+        long orderId = api.id(createOrder(userId, "idem-replay").andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+
+        api.addToCart(userId, variationId, 2); // повтор не должен оформить новую корзину
+        createOrder(userId, "idem-replay")
+                .andExpect(status().isOk())
+                .andExpect(header().string("Location", "/orders/" + orderId))
+                .andExpect(jsonPath("$.id", is((int) orderId)));
+        mvc.perform(get("/cart").param("userId", String.valueOf(userId)))
+                .andExpect(jsonPath("$.items[0].quantity", is(2)));
+
+        createOrder(api.user("Other"), "idem-replay")
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.code", is("IDEMPOTENCY_KEY_REUSED")));
+
+        // заказ уехал в архив — ключ из таблицы (в кэше его нет) находит его там
+        mvc.perform(delete("/orders/{id}", orderId)).andExpect(status().isOk());
+        assertTrue(archiver.archiveCreatedBefore(Instant.now().plus(Duration.ofMinutes(1))) >= 1);
+        OrderIdempotencyKey stored = new OrderIdempotencyKey("idem-archived", userId);
+        stored.setOrderId(orderId);
+        keys.save(stored);
+        OrderDto archived = idempotency.execute("idem-archived", userId, () -> fail("must not create"));
+        assertEquals(orderId, archived.getId());
+        assertEquals("CANCELLED", archived.getStatus());
+    }
+
+    @Test
+    void concurrentDuplicate_getsWinnersOrder() throws Exception {
+        ApiFixture api = new ApiFixture(mvc, om);
+        long userId = api.user("Race");
+        api.addToCart(userId, api.variation(api.restaurant("Race"), "350.00"), 1);
+
+        CountDownLatch keyTaken = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<OrderDto> winner = pool.submit(() -> idempotency.execute("idem-race", userId, () -> {
+                keyTaken.countDown();
+                sleep(300); // дубль успевает упереться в PK, пока эта транзакция открыта
+                return orderMapper.toDto(orderService.createFromCart(userId));
+            }));
+            assertTrue(keyTaken.await(10, TimeUnit.SECONDS));
+            Future<OrderDto> duplicate = pool.submit(() -> idempotency.execute("idem-race", userId,
+                    () -> orderMapper.toDto(orderService.createFromCart(userId))));
+
+            assertEquals(winner.get().getId(), duplicate.get().getId());
+        } finally {
+            pool.shutdown();
+        }
+        mvc.perform(get("/orders").param("userId", String.valueOf(userId)))
+                .andExpect(jsonPath("$.items", hasSize(1)));
+    }
+
+    private ResultActions createOrder(long userId, String key) throws Exception {
+        return mvc.perform(post("/orders")
+                .header("Idempotency-Key", key)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                        {"userId": %d}
+                        """.formatted(userId)));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
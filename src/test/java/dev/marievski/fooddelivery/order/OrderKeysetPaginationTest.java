@@ -0,0 +1,66 @@
+package dev.marievski.fooddelivery.order;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.marievski.fooddelivery.ApiFixture;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * GET /orders: keyset-пагинация по курсору, новые заказы сначала.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class OrderKeysetPaginationTest {
+
+    @Autowired MockMvc mvc;
+    @Autowired ObjectMapper om;
+
+    @Test
+    void list_byUser_pagesWithCursor() throws Exception {
+        ApiFixture api = new ApiFixture(mvc, om);
+        long userId = api.user("P");
+        long variationId = api.variation(api.restaurant("Pager"), "350.00");
+
+        long[] orderIds = new long[3];
+        for (int i = 0; i < orderIds.length; i++) {
+            api.addToCart(userId, variationId, 1);
+            orderIds[i] = api.order(userId);
+        }
+
+        // 1) первая страница: два самых новых заказа + курсор
+        JsonNode first = om.readTree(mvc.perform(get("/orders")
+                        .param("userId", String.valueOf(userId))
+                        .param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(2)))
+                .andExpect(jsonPath("$.items[0].id", is((int) orderIds[2])))
+                .andExpect(jsonPath("$.items[1].id", is((int) orderIds[1])))
+                .andExpect(jsonPath("$.nextCursor", notNullValue()))
+                .andReturn().getResponse().getContentAsString());
+
+        // 2) по курсору — оставшийся заказ, курсора больше нет
+        mvc.perform(get("/orders")
+                        .param("userId", String.valueOf(userId))
+                        .param("limit", "2")
+                        .param("cursor", first.get("nextCursor").asText()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.items[0].id", is((int) orderIds[0])))
+                .andExpect(jsonPath("$.items[0].itemCount", is(1)))
+                .andExpect(jsonPath("$.nextCursor", nullValue()));
+
+        // 3) битый курсор — 400, а не 500
+        mvc.perform(get("/orders").param("cursor", "%%%"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.code", is("BAD_CURSOR")));
+    }
+}
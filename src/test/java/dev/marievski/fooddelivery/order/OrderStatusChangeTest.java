@@ -0,0 +1,109 @@
+package dev.marievski.fooddelivery.order;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.marievski.fooddelivery.ApiFixture;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Смена статуса через compare-and-set: проигравший CAS — 409 с текущим статусом, пакет — результат по каждому id,
+ * а загруженный в той же транзакции Order после UPDATE не остаётся устаревшим.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class OrderStatusChangeTest {
+
+    @Autowired MockMvc mvc;
+    @Autowired ObjectMapper om;
+    @Autowired OrderService orderService;
+    @Autowired OrderRepository orders;
+    @Autowired TransactionTemplate tx;
+
+    @Test
+    void changeStatus_conflictKeepsCurrentStatus() throws Exception {
+        ApiFixture api = new ApiFixture(mvc, om);
+        long userId = api.user("Cas");
+        api.addToCart(userId, api.variation(api.restaurant("Cas"), "350.00"), 1);
+        long orderId = api.order(userId);
+
+        patchStatus(orderId, "READY")
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.code", is("BAD_TRANSITION")));
+        mvc.perform(delete("/orders/{id}", orderId)).andExpect(status().isOk());
+        patchStatus(orderId, "CONFIRMED")
+                .andExpect(status().isConflict());
+        patchStatus(orderId, "CANCELLED") // повтор того же статуса — не ошибка
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status", is("CANCELLED")));
+    }
+
+    @Test
+    void changeStatus_refreshesOrderLoadedInSameTransaction() throws Exception {
+        ApiFixture api = new ApiFixture(mvc, om);
+        long userId = api.user("Stale");
+        api.addToCart(userId, api.variation(api.restaurant("Stale"), "350.00"), 1);
+        long orderId = api.order(userId);
+
+        tx.executeWithoutResult(status -> {
+            Order before = orders.findById(orderId).orElseThrow();
+            long version = before.getVersion();
+            orderService.changeStatus(orderId, OrderStatus.CONFIRMED);
+            Order after = orders.findById(orderId).orElseThrow();
+            assertEquals(OrderStatus.CONFIRMED, after.getStatus());
+            assertEquals(version + 1, after.getVersion());
+        });
+    }
+
+    @Test
+    void statusBatch_reportsEachId() throws Exception {
+        ApiFixture api = new ApiFixture(mvc, om);
+        long userId = api.user("Batch");
+        long variationId = api.variation(api.restaurant("Batch"), "350.00");
+        long[] ids = new long[3];
+        for (int i = 0; i < ids.length; i++) {
+            api.addToCart(userId, variationId, 1);
+            ids[i] = api.order(userId);
+        }
+        patchStatus(ids[1], "CONFIRMED").andExpect(status().isOk());
+        mvc.perform(delete("/orders/{id}", ids[2])).andExpect(status().isOk());
+
+        mvc.perform(post("/orders/status:batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"ids": [%d, %d, %d, %d, %d], "status": "CONFIRMED"}
+                                """.formatted(ids[0], ids[1], ids[2], Long.MAX_VALUE, ids[0])))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(4))) // дубликат схлопнут
+                .andExpect(jsonPath("$[0].status", is("CONFIRMED")))
+                .andExpect(jsonPath("$[0].code").value(nullValue()))
+                .andExpect(jsonPath("$[1].status", is("CONFIRMED")))
+                .andExpect(jsonPath("$[1].code").value(nullValue()))
+                .andExpect(jsonPath("$[2].status", is("CANCELLED")))
+                .andExpect(jsonPath("$[2].code", is("BAD_TRANSITION")))
+                .andExpect(jsonPath("$[3].code", is("ORDER_NOT_FOUND")));
+
+        mvc.perform(get("/orders/{id}", ids[0]))
+                .andExpect(jsonPath("$.status", is("CONFIRMED")));
+        mvc.perform(get("/orders").param("userId", String.valueOf(userId)).param("status", "CONFIRMED"))
+                .andExpect(jsonPath("$.items", hasSize(2)));
+    }
+
+    private ResultActions patchStatus(long orderId, String status) throws Exception {
+        return mvc.perform(patch("/orders/{id}/status", orderId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                        {"status": "%s"}
+                        """.formatted(status)));
+    }
+}
@@ -0,0 +1,39 @@
+package dev.marievski.fooddelivery.order;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Таблица переходов статусов заказа.
+ */
+class OrderStatusTest {
+
+    @Test
+    void happyPath_isAllowedStepByStep() {
+        assertTrue(OrderStatus.NEW.canMoveTo(OrderStatus.CONFIRMED));
+        assertTrue(OrderStatus.CONFIRMED.canMoveTo(OrderStatus.READY));
+        assertTrue(OrderStatus.READY.canMoveTo(OrderStatus.ASSIGNED));
+        assertTrue(OrderStatus.ASSIGNED.canMoveTo(OrderStatus.DELIVERING));
+        assertTrue(OrderStatus.DELIVERING.canMoveTo(OrderStatus.DELIVERED));
+    }
+
+    @Test
+    void skippingStepsAndReturningToNew_areForbidden() {
+        assertFalse(OrderStatus.NEW.canMoveTo(OrderStatus.READY));
+        assertFalse(OrderStatus.CONFIRMED.canMoveTo(OrderStatus.DELIVERED));
+        assertFalse(OrderStatus.CONFIRMED.canMoveTo(OrderStatus.NEW));
+        assertTrue(OrderStatus.NEW.allowedFrom().isEmpty());
+    }
+
+    @Test
+    void cancel_allowedFromEverythingExceptDelivered() {
+        assertEquals(EnumSet.of(OrderStatus.NEW, OrderStatus.CONFIRMED, OrderStatus.READY,
+                        OrderStatus.ASSIGNED, OrderStatus.DELIVERING),
+                OrderStatus.CANCELLED.allowedFrom());
+        assertFalse(OrderStatus.DELIVERED.canMoveTo(OrderStatus.CANCELLED));
+        assertTrue(OrderStatus.CANCELLED.canMoveTo(OrderStatus.CANCELLED)); // повтор — no-op
+    }
+}
@@ -0,0 +1,58 @@
+package dev.marievski.fooddelivery.order;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.marievski.fooddelivery.ApiFixture;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.hamcrest.Matchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * GET /orders/{id}/events: снимок при подключении и смены статуса по SSE.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class OrderTrackingTest {
+
+    @Autowired MockMvc mvc;
+    @Autowired ObjectMapper om;
+
+    @Test
+    void events_streamStatusChanges_untilFinal() throws Exception {
+        ApiFixture api = new ApiFixture(mvc, om);
+        long userId = api.user("T");
+        api.addToCart(userId, api.variation(api.restaurant("Tracker"), "350.00"), 1);
+        long orderId = api.order(userId);
+
+        MvcResult stream = mvc.perform(get("/orders/{id}/events", orderId)
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(patch("/orders/{id}/status", orderId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                { "status": "CONFIRMED" }
+                                """))
+                .andExpect(status().isOk());
+        mvc.perform(delete("/orders/{id}", orderId))
+                .andExpect(status().isOk());
+
+        String body = stream.getResponse().getContentAsString();
+        assertThat(body, stringContainsInOrder(
+                "\"status\":\"NEW\"", "\"status\":\"CONFIRMED\"", "\"status\":\"CANCELLED\""));
+        assertThat(body, containsString("\"etaMinutes\":"));
+
+        // несуществующий заказ — обычная ошибка, а не пустой поток
+        mvc.perform(get("/orders/{id}/events", Long.MAX_VALUE).accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(status().isBadRequest());
+    }
+}
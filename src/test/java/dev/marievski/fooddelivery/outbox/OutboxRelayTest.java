@@ -0,0 +1,128 @@
+package dev.marievski.fooddelivery.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.marievski.fooddelivery.ApiFixture;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Outbox: события заказа пишутся вместе с переходом и доставляются по порядку,
+ * а после сбоя подписчика — повторно, не обгоняя друг друга; после max-attempts неудач событие откладывается.
+ */
+@SpringBootTest(properties = {
+        "app.outbox.max-attempts=2",
+        "app.outbox.poll-interval=PT1H" // релей дёргаем вручную
+})
+@AutoConfigureMockMvc
+class OutboxRelayTest {
+
+    @TestConfiguration
+    static class Config {
+        @Bean
+        RecordingSubscriber recordingSubscriber() {
+            return new RecordingSubscriber();
+        }
+    }
+
+    static class RecordingSubscriber implements OutboxSubscriber {
+        final List<OutboxMessage> received = new CopyOnWriteArrayList<>();
+        final AtomicBoolean failNext = new AtomicBoolean();
+        final Set<String> poisoned = ConcurrentHashMap.newKeySet(); // "orderId:eventType" — падают всегда
+
+        @Override
+        public void handle(OutboxMessage message) {
+            if (poisoned.contains(message.aggregateId() + ":" + message.eventType())
+                    || failNext.compareAndSet(true, false)) {
+                throw new IllegalStateException("subscriber down");
+            }
+            received.add(message);
+        }
+
+        List<String> typesFor(long orderId) {
+            return received.stream()
+                    .filter(m -> m.aggregateId() == orderId)
+                    .map(OutboxMessage::eventType)
+                    .toList();
+        }
+    }
+
+    @Autowired MockMvc mvc;
+    @Autowired ObjectMapper om;
+    @Autowired OutboxRelay relay;
+    @Autowired RecordingSubscriber subscriber;
+    @Autowired OutboxRepository events;
+    @Autowired MeterRegistry meters;
+
+    @Test
+    void orderEvents_deliveredInOrder_afterSubscriberFailure() throws Exception {
+        ApiFixture api = new ApiFixture(mvc, om);
+        long userId = api.user("O");
+        long variationId = api.variation(api.restaurant("Outbox"), "350.00");
+        api.addToCart(userId, variationId, 1);
+
+        relay.drain(); // разгребаем всё, что накопилось до заказа
+        subscriber.failNext.set(true);
+
+        long orderId = api.order(userId);
+
+        mvc.perform(patch("/orders/{id}/status", orderId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                { "status": "CONFIRMED" }
+                                """))
+                .andExpect(status().isOk());
+
+        // первая попытка падает на ORDER_CREATED — смена статуса не должна его обогнать
+        relay.drain();
+        relay.drain();
+
+        assertEquals(List.of("ORDER_CREATED", "ORDER_STATUS_CHANGED"), subscriber.typesFor(orderId));
+    }
+
+    @Test
+    void poisonEvent_isParkedAfterMaxAttempts_andStopsBlockingOrder() throws Exception {
+        ApiFixture api = new ApiFixture(mvc, om);
+        long userId = api.user("P");
+        api.addToCart(userId, api.variation(api.restaurant("Poison"), "350.00"), 1);
+        relay.drain();
+
+        double parkedBefore = meters.counter("outbox.events.parked").count();
+        long orderId = api.order(userId);
+        subscriber.poisoned.add(orderId + ":ORDER_CREATED");
+        mvc.perform(patch("/orders/{id}/status", orderId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                { "status": "CONFIRMED" }
+                                """))
+                .andExpect(status().isOk());
+
+        for (int i = 0; i < 3; i++) relay.drain(); // две неудачи -> parked, затем смена статуса
+
+        assertEquals(List.of("ORDER_STATUS_CHANGED"), subscriber.typesFor(orderId));
+        OutboxEvent poison = events.findAll().stream()
+                .filter(e -> e.getAggregateId() == orderId && e.getEventType().equals("ORDER_CREATED"))
+                .findFirst().orElseThrow();
+        assertEquals(2, poison.getAttempts());
+        assertNotNull(poison.getParkedAt());
+        assertNull(poison.getProcessedAt());
+        assertTrue(poison.getLastError().contains("subscriber down"));
+        assertEquals(parkedBefore + 1, meters.counter("outbox.events.parked").count());
+    }
+}
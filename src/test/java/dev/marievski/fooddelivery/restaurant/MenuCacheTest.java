@@ -0,0 +1,129 @@
+package dev.marievski.fooddelivery.restaurant;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.marievski.fooddelivery.ApiFixture;
+import dev.marievski.fooddelivery.restaurant.mapper.MenuItemMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Кэш меню: повторное чтение — из кэша, правка меню сбрасывает ровно свой ресторан; ETag/304 по версии меню.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class MenuCacheTest {
+
+    @Autowired MockMvc mvc;
+    @Autowired ObjectMapper om;
+    @Autowired MeterRegistry meters;
+
+    @Test
+    void menu_isCachedAndInvalidatedPerRestaurant() throws Exception {
+        ApiFixture api = new ApiFixture(mvc, om);
+        long first = api.restaurant("Cached A");
+        long second = api.restaurant("Cached B");
+        long variationId = variation(api.dish(first, "Soup", "350.00"));
+        api.dish(second, "Salad", "350.00");
+
+        mvc.perform(get("/restaurants/{id}/menu", first)).andExpect(status().isOk());
+        mvc.perform(get("/restaurants/{id}/menu", second)).andExpect(status().isOk());
+        double hitsBefore = count("hit");
+        double missesBefore = count("miss");
+        mvc.perform(get("/restaurants/{id}/menu", first))
+                .andExpect(jsonPath("$[0].variations[0].available", is(true)));
+        assertEquals(hitsBefore + 1, count("hit"));
+
+        mvc.perform(patch("/menu/{id}/availability", variationId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"available": false}
+                                """))
+                .andExpect(status().isOk());
+
+        mvc.perform(get("/restaurants/{id}/menu", first))
+                .andExpect(jsonPath("$[0].variations[0].available", is(false)));
+        mvc.perform(get("/restaurants/{id}/menu", second))
+                .andExpect(jsonPath("$[0].name", is("Salad")));
+        assertEquals(missesBefore + 1, count("miss")); // перечитан только первый ресторан
+        assertEquals(hitsBefore + 2, count("hit"));
+    }
+
+    @Test
+    void menu_answersIfNoneMatchWith304UntilMenuChanges() throws Exception {
+        ApiFixture api = new ApiFixture(mvc, om);
+        long restaurantId = api.restaurant("Etag");
+        long variationId = variation(api.dish(restaurantId, "Pasta", "350.00"));
+
+        String etag = mvc.perform(get("/restaurants/{id}/menu", restaurantId))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andExpect(jsonPath("$[0].name", is("Pasta")))
+                .andReturn().getResponse().getHeader("ETag");
+        mvc.perform(get("/restaurants/{id}/menu", restaurantId).header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        mvc.perform(patch("/menu/{id}/availability", variationId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"available": false}
+                                """))
+                .andExpect(status().isOk());
+        mvc.perform(get("/restaurants/{id}/menu", restaurantId).header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", not(etag)))
+                .andExpect(jsonPath("$[0].variations[0].available", is(false)));
+    }
+
+    @Test
+    void menu_inFlightLoadSurvivesEditOfAnotherRestaurant() {
+        RestaurantRepository restaurants = mock(RestaurantRepository.class);
+        MenuItemRepository items = mock(MenuItemRepository.class);
+        MenuCache cache = new MenuCache(restaurants, items, mock(MenuItemMapper.class), om,
+                new SimpleMeterRegistry(), 100, Long.MAX_VALUE, 1024, Duration.ofHours(1));
+        // пока грузится меню ресторана 1, закоммитилась правка ресторана 2, а затем — самого ресторана 1
+        when(restaurants.findMenuVersionById(1L))
+                .thenAnswer(load -> {
+                    cache.invalidate(2L);
+                    return Optional.of(1L);
+                })
+                .thenAnswer(load -> {
+                    cache.invalidate(1L);
+                    return Optional.of(2L);
+                })
+                .thenReturn(Optional.of(2L));
+
+        cache.menuOf(1L);
+        cache.menuOf(1L); // из кэша: чужая правка загрузку не выбросила
+        verify(items, times(1)).findByRestaurantIdOrderByIdAsc(1L);
+
+        cache.invalidate(1L);
+        assertEquals(2L, cache.menuOf(1L).version()); // своя правка во время загрузки — в кэше не остаётся
+        assertEquals(2L, cache.menuOf(1L).version());
+        verify(items, times(3)).findByRestaurantIdOrderByIdAsc(1L);
+    }
+
+    private static long variation(JsonNode dish) {
+        return dish.get("variations").get(0).get("id").asLong();
+    }
+
+    private double count(String result) {
+        return meters.get("cache.gets").tag("cache", "menu").tag("result", result).functionCounter().count();
+    }
+}
@@ -0,0 +1,37 @@
+package dev.marievski.fooddelivery.restaurant;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class MenuCatalogTest {
+
+    @Test
+    void reload_keepsEditAppliedWhileReading() {
+        MenuVariationRepository variations = mock(MenuVariationRepository.class);
+        MenuCatalog catalog = new MenuCatalog(variations);
+        MenuCatalogRow row = new MenuCatalogRow(1L, 10L, true, 350_00, 10, true, "V1");
+        when(variations.findCatalogRows())
+                .thenReturn(List.of(row))
+                .thenAnswer(read -> {
+                    // правка закоммитилась и применилась, пока перезагрузка читала старые строки
+                    catalog.availabilityChanged(1L, false);
+                    catalog.variationsSaved(List.of(new MenuCatalogRow(1L, 10L, true, 400_00, 10, false, "V1")));
+                    return List.of(row);
+                });
+
+        assertTrue(catalog.isAvailable(1L));
+        catalog.reload();
+
+        assertFalse(catalog.isAvailable(1L));
+        assertEquals(400_00, catalog.priceCents(1L));
+
+        // следующая перезагрузка без правок — снова по БД
+        when(variations.findCatalogRows()).thenReturn(List.of(row));
+        catalog.reload();
+        assertTrue(catalog.isAvailable(1L));
+    }
+}
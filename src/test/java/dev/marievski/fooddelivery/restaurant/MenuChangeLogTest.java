@@ -0,0 +1,109 @@
+package dev.marievski.fooddelivery.restaurant;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.marievski.fooddelivery.ApiFixture;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Дельта меню: только изменённое после since, resync — после сжатия журнала.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class MenuChangeLogTest {
+
+    @Autowired MockMvc mvc;
+    @Autowired ObjectMapper om;
+    @Autowired MenuChangeLog changeLog;
+    @Autowired JdbcTemplate jdbc;
+    @Autowired TransactionTemplate tx;
+    @Autowired RestaurantService restaurantService;
+    @Autowired RestaurantRepository restaurants;
+
+    @Test
+    void changesSince_returnsOnlyDeltaAndResyncAfterCompaction() throws Exception {
+        ApiFixture api = new ApiFixture(mvc, om);
+        long restaurantId = api.restaurant("Delta");
+        JsonNode soup = api.dish(restaurantId, "Soup", "350.00");   // версия 1
+        JsonNode salad = api.dish(restaurantId, "Salad", "350.00"); // версия 2
+        long soupVariation = soup.get("variations").get(0).get("id").asLong();
+
+        mvc.perform(patch("/menu/{id}/availability", soupVariation)   // 3
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"available": false}
+                                """))
+                .andExpect(status().isOk());
+        mvc.perform(delete("/menu/{id}", salad.get("id").asLong()))    // 4
+                .andExpect(status().isOk());
+
+        mvc.perform(get("/restaurants/{id}/menu/changes", restaurantId).param("since", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version", is(4)))
+                .andExpect(jsonPath("$.resync", is(false)))
+                .andExpect(jsonPath("$.items", hasSize(0)))
+                .andExpect(jsonPath("$.variations[0].id", is((int) soupVariation)))
+                .andExpect(jsonPath("$.variations[0].available", is(false)))
+                .andExpect(jsonPath("$.deletedItemIds", contains(salad.get("id").asInt())));
+        mvc.perform(get("/restaurants/{id}/menu/changes", restaurantId).param("since", "0"))
+                .andExpect(jsonPath("$.items[*].name", contains("Soup")))
+                .andExpect(jsonPath("$.variations", hasSize(0)));
+        mvc.perform(get("/restaurants/{id}/menu/changes", restaurantId).param("since", "4"))
+                .andExpect(jsonPath("$.resync", is(false)))
+                .andExpect(jsonPath("$.items", hasSize(0)));
+
+        // журнал общий с другими тестами: состариваем только свои записи и сжимаем обычным compact()
+        jdbc.update("UPDATE menu_changes SET created_at = ? WHERE restaurant_id = ?",
+                Timestamp.from(Instant.now().minus(Duration.ofDays(30))), restaurantId);
+        changeLog.compact();
+        mvc.perform(get("/restaurants/{id}/menu/changes", restaurantId).param("since", "1"))
+                .andExpect(jsonPath("$.version", is(4)))
+                .andExpect(jsonPath("$.resync", is(true)));
+    }
+
+    @Test
+    void restaurantUpdate_keepsMenuVersionBumpedAfterLoad() throws Exception {
+        ApiFixture api = new ApiFixture(mvc, om);
+        long restaurantId = api.restaurant("Stale version");
+        api.dish(restaurantId, "Soup", "350.00"); // версия 1
+
+        tx.executeWithoutResult(status -> {
+            restaurants.findById(restaurantId).orElseThrow(); // загружен на версии 1
+            // правка меню из другой транзакции коммитится раньше, чем update() сбросит ресторан
+            CompletableFuture.runAsync(() -> {
+                try {
+                    api.dish(restaurantId, "Salad", "350.00"); // версия 2
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }).join();
+            Restaurant patch = new Restaurant();
+            patch.setName("Renamed");
+            restaurantService.update(restaurantId, patch);
+        });
+
+        assertEquals(2L, restaurants.findMenuVersionById(restaurantId).orElseThrow());
+        api.dish(restaurantId, "Pasta", "350.00"); // версия 3 — seq не повторяется
+        mvc.perform(get("/restaurants/{id}/menu/changes", restaurantId).param("since", "1"))
+                .andExpect(jsonPath("$.version", is(3)))
+                .andExpect(jsonPath("$.resync", is(false)))
+                .andExpect(jsonPath("$.items[*].name", contains("Salad", "Pasta")));
+    }
+}
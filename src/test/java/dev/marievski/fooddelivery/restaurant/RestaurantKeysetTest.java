@@ -0,0 +1,72 @@
+package dev.marievski.fooddelivery.restaurant;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.marievski.fooddelivery.ApiFixture;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Список ресторанов: фильтры складываются, страницы идут по курсору без пропусков и повторов.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class RestaurantKeysetTest {
+
+    @Autowired MockMvc mvc;
+    @Autowired ObjectMapper om;
+
+    @Test
+    void list_pagesByCursorInRatingThenIdOrder() throws Exception {
+        ApiFixture api = new ApiFixture(mvc, om);
+        List<Long> created = new ArrayList<>();
+        for (int i = 0; i < 5; i++) created.add(api.restaurant("Keyset " + i, "ITALIAN", true));
+
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            var request = get("/restaurants").param("name", "keyset").param("limit", "2");
+            if (cursor != null) request.param("cursor", cursor);
+            JsonNode page = om.readTree(mvc.perform(request)
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.items", hasSize(lessThanOrEqualTo(2))))
+                    .andReturn().getResponse().getContentAsString());
+            page.get("items").forEach(r -> seen.add(r.get("id").asLong()));
+            cursor = page.get("nextCursor").isNull() ? null : page.get("nextCursor").asText();
+        } while (cursor != null);
+
+        assertEquals(created, seen); // рейтинг у всех одинаковый — порядок по id
+    }
+
+    @Test
+    void list_combinesFilters() throws Exception {
+        ApiFixture api = new ApiFixture(mvc, om);
+        long wanted = api.restaurant("Combo open", "JAPANESE", true);
+        api.restaurant("Combo closed", "JAPANESE", false);
+        api.restaurant("Combo other", "ITALIAN", true);
+
+        mvc.perform(get("/restaurants")
+                        .param("name", "combo")
+                        .param("open", "true")
+                        .param("cuisine", "JAPANESE", "CHINESE"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[*].id", contains((int) wanted)))
+                .andExpect(jsonPath("$.nextCursor").value(nullValue()));
+
+        mvc.perform(get("/restaurants").param("name", "combo").param("minRating", "4.5"))
+                .andExpect(jsonPath("$.items", empty()));
+        mvc.perform(get("/restaurants").param("cursor", "garbage"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,128 @@
+package dev.marievski.fooddelivery.routing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.marievski.fooddelivery.common.ApiBadRequestException;
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserAffinityRoutingTest {
+
+    private static final String A = "http://localhost:8080";
+    private static final String B = "http://localhost:8081";
+    private static final String C = "http://localhost:8082";
+    private static final ConsistentHashRing RING = new ConsistentHashRing(List.of(A, B), 128);
+
+    @Test
+    void ring_spreadsUsers_andMovesOnlyShareOfRemovedNode() {
+        ConsistentHashRing three = new ConsistentHashRing(List.of(A, B, C), 128);
+        ConsistentHashRing two = new ConsistentHashRing(List.of(A, B), 128);
+
+        Map<String, Integer> load = new HashMap<>();
+        int moved = 0;
+        for (int user = 1; user <= 9_000; user++) {
+            String key = String.valueOf(user);
+            String owner = three.nodeFor(key);
+            load.merge(owner, 1, Integer::sum);
+            if (!owner.equals(C) && !owner.equals(two.nodeFor(key))) moved++;
+        }
+        for (String node : List.of(A, B, C)) {
+            assertTrue(load.get(node) > 2_000, () -> "unbalanced: " + load);
+        }
+        assertEquals(0, moved); // ключи живых узлов остаются на месте
+    }
+
+    @Test
+    void interceptor_redirectsForeignUser_once() throws Exception {
+        String foreignUser = userOwnedBy(B);
+        UserAffinityInterceptor onA = new UserAffinityInterceptor(RING, A, new ObjectMapper());
+
+        MockHttpServletRequest get = new MockHttpServletRequest("GET", "/cart");
+        get.setQueryString("userId=" + foreignUser);
+        get.setParameter("userId", foreignUser);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertFalse(onA.preHandle(get, response, null));
+        assertEquals(307, response.getStatus());
+        assertEquals(B + "/cart?userId=" + foreignUser + "&routed=1", response.getHeader("Location"));
+
+        // уже перенаправленный запрос обслуживается на месте
+        get.setParameter("routed", "1");
+        assertTrue(onA.preHandle(get, new MockHttpServletResponse(), null));
+
+        // POST с телом — пользователь из заголовка
+        MockHttpServletRequest post = new MockHttpServletRequest("POST", "/orders");
+        post.addHeader("X-User-Id", foreignUser);
+        response = new MockHttpServletResponse();
+        assertFalse(onA.preHandle(post, response, null));
+        assertEquals(B + "/orders?routed=1", response.getHeader("Location"));
+
+        // чтение без пользователя — на месте
+        assertTrue(onA.preHandle(new MockHttpServletRequest("GET", "/cart"), new MockHttpServletResponse(), null));
+    }
+
+    @Test
+    void interceptor_routesWriteByBodyUser_andRejectsMissingOrMismatchedUser() throws Exception {
+        String foreignUser = userOwnedBy(B);
+        String localUser = userOwnedBy(A);
+        UserAffinityInterceptor onA = new UserAffinityInterceptor(RING, A, new ObjectMapper());
+
+        // как обычный клиент: userId только в теле
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertFalse(onA.preHandle(throughBodyFilter(jsonPost("/cart/items", foreignUser)), response, null));
+        assertEquals(307, response.getStatus());
+        assertEquals(B + "/cart/items?routed=1", response.getHeader("Location"));
+
+        // свой пользователь — на месте, и контроллер читает то же тело
+        HttpServletRequest local = throughBodyFilter(jsonPost("/orders", localUser));
+        assertTrue(onA.preHandle(local, new MockHttpServletResponse(), null));
+        assertEquals(body(localUser), new String(local.getInputStream().readAllBytes(), StandardCharsets.UTF_8));
+
+        // заголовок есть, но не совпадает с телом
+        MockHttpServletRequest mismatch = jsonPost("/orders", localUser);
+        mismatch.addHeader("X-User-Id", foreignUser);
+        ApiBadRequestException e = assertThrows(ApiBadRequestException.class,
+                () -> onA.preHandle(throughBodyFilter(mismatch), new MockHttpServletResponse(), null));
+        assertEquals("USER_MISMATCH", e.getCode());
+
+        // пишущий запрос без пользователя нельзя обслужить на произвольном узле
+        MockHttpServletRequest anonymous = new MockHttpServletRequest("POST", "/cart/items");
+        anonymous.setContentType("application/json");
+        anonymous.setContent("{\"variationId\": 1}".getBytes(StandardCharsets.UTF_8));
+        e = assertThrows(ApiBadRequestException.class,
+                () -> onA.preHandle(throughBodyFilter(anonymous), new MockHttpServletResponse(), null));
+        assertEquals("USER_REQUIRED", e.getCode());
+    }
+
+    private static String userOwnedBy(String node) {
+        for (int user = 1; ; user++) {
+            if (RING.nodeFor(String.valueOf(user)).equals(node)) return String.valueOf(user);
+        }
+    }
+
+    private static String body(String userId) {
+        return "{\"userId\": " + userId + ", \"variationId\": 1, \"quantity\": 1}";
+    }
+
+    private static MockHttpServletRequest jsonPost(String uri, String userId) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", uri);
+        request.setContentType("application/json");
+        request.setContent(body(userId).getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    /** Запрос в том виде, в каком его увидит интерсептор после CachedBodyFilter. */
+    private static HttpServletRequest throughBodyFilter(MockHttpServletRequest request) throws Exception {
+        MockFilterChain chain = new MockFilterChain();
+        new CachedBodyFilter().doFilter(request, new MockHttpServletResponse(), chain);
+        return (HttpServletRequest) chain.getRequest();
+    }
+}
@@ -0,0 +1,71 @@
+package dev.marievski.fooddelivery.search;
+
+import dev.marievski.fooddelivery.search.SearchIndex.DishDoc;
+import dev.marievski.fooddelivery.search.SearchIndex.RestaurantDoc;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH: поиск по индексу на 100k блюд (2k ресторанов). Режим SampleTime — в отчёте перцентили, включая p0.99.
+ * По умолчанию выключен. Запуск:
+ * <pre>
+ * mvn test -Dtest=SearchBenchmarkTest -Dbenchmark=true
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SearchBenchmarkTest {
+
+    private static final String[] WORDS = {"пицца", "паста", "суп", "борщ", "салат", "бургер", "ролл", "лапша",
+            "курица", "говядина", "сыр", "грибы", "томаты", "острый", "домашний", "классический", "шашлык",
+            "плов", "хачапури", "рамен", "фалафель", "тако", "стейк", "креветки", "лосось", "тунец"};
+
+    @Param({"пиц", "суп гриб", "острый рамен"})
+    String query;
+
+    SearchIndex index;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        index = new SearchIndex();
+        for (long r = 1; r <= 2_000; r++) {
+            index.putRestaurant(new RestaurantDoc(r, word(random) + " " + word(random) + " " + r,
+                    random.nextInt(5) > 0, random.nextDouble() * 5));
+        }
+        for (long d = 1; d <= 100_000; d++) {
+            index.putDish(new DishDoc(d, 1 + random.nextInt(2_000), word(random) + " " + word(random),
+                    word(random) + ", " + word(random) + ", " + word(random), List.of("S", "M", "L")));
+        }
+    }
+
+    @Benchmark
+    public Object search() {
+        return index.search(query, 20);
+    }
+
+    private static String word(Random random) {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void run() throws Exception {
+        Options options = new OptionsBuilder()
+                .include(SearchBenchmarkTest.class.getName() + "\\.")
+                .build();
+        new Runner(options).run();
+    }
+}
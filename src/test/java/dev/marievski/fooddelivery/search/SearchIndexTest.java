@@ -0,0 +1,72 @@
+package dev.marievski.fooddelivery.search;
+
+import dev.marievski.fooddelivery.search.SearchIndex.DishDoc;
+import dev.marievski.fooddelivery.search.SearchIndex.Hit;
+import dev.marievski.fooddelivery.search.SearchIndex.HitType;
+import dev.marievski.fooddelivery.search.SearchIndex.RestaurantDoc;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchIndexTest {
+
+    @Test
+    void prefixMatch_allWordsRequired_rankedByRatingAndOpen() {
+        SearchIndex index = new SearchIndex();
+        index.putRestaurant(new RestaurantDoc(1, "Пиццерия Марио", true, 4.5));
+        index.putRestaurant(new RestaurantDoc(2, "Ночная пицца", false, 5.0));
+        index.putDish(new DishDoc(10, 1, "Пицца Маргарита", "томаты, моцарелла", List.of("30 см")));
+        index.putDish(new DishDoc(20, 2, "Пицца Пепперони", "салями", List.of("30 см", "40 см")));
+
+        List<Hit> hits = index.search("пиц", 10);
+        assertEquals(4, hits.size());
+        assertEquals(1, hits.get(0).id()); // открытый ресторан с хорошим рейтингом впереди закрытого
+
+        List<Hit> margherita = index.search("Пицца МОЦАР", 10);
+        assertEquals(1, margherita.size());
+        assertEquals(HitType.DISH, margherita.get(0).type());
+        assertEquals("Пиццерия Марио", margherita.get(0).restaurantName());
+
+        assertEquals(20, index.search("40", 10).get(0).id()); // подпись вариации
+        assertTrue(index.search("суши", 10).isEmpty());
+        assertTrue(index.search("  ,. ", 10).isEmpty());
+    }
+
+    @Test
+    void incrementalUpdates_replaceAndRemoveDocuments() {
+        SearchIndex index = new SearchIndex();
+        index.putRestaurant(new RestaurantDoc(1, "Бистро", true, 4.0));
+        index.putDish(new DishDoc(10, 1, "Борщ", null, List.of()));
+
+        index.putDish(new DishDoc(10, 1, "Солянка", null, List.of()));
+        assertTrue(index.search("борщ", 10).isEmpty());
+        assertEquals(10, index.search("солян", 10).get(0).id());
+
+        index.removeDish(10);
+        assertTrue(index.search("солянка", 10).isEmpty());
+        assertEquals(0, index.dishCount());
+    }
+
+    @Test
+    void singleWord_stopsEarly_withSameTopAsFullScan() {
+        SearchIndex index = new SearchIndex();
+        for (long r = 1; r <= 20; r++) {
+            index.putRestaurant(new RestaurantDoc(r, (r % 2 == 0 ? "Пицца " : "Суп ") + r, r % 3 > 0, r % 6));
+        }
+        for (long d = 1; d <= 400; d++) {
+            String name = d % 5 == 0 ? "Пицца" : "Пиццетта";
+            index.putDish(new DishDoc(d, 1 + d % 20, d % 7 == 0 ? "Суп" : name, "пицца, сыр", List.of()));
+        }
+
+        for (String word : new String[]{"пицца", "пиц", "пиццетта", "сыр"}) {
+            List<Hit> all = index.search(word, 1_000);
+            for (int limit : new int[]{1, 5, 12, 40}) {
+                assertEquals(all.subList(0, limit), index.search(word, limit), word + " / " + limit);
+            }
+        }
+        // точное слово в названии ресторана весит больше всего
+        assertEquals(HitType.RESTAURANT, index.search("пицца", 1).get(0).type());
+    }
+}
@@ -0,0 +1,57 @@
+package dev.marievski.fooddelivery.stats;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.marievski.fooddelivery.ApiFixture;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * GET /restaurants/{id}/stats: дневные агрегаты копятся по событиям заказов и отдаются после сброса.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class RestaurantStatsTest {
+
+    @Autowired MockMvc mvc;
+    @Autowired ObjectMapper om;
+    @Autowired RestaurantStatsAccumulator accumulator;
+
+    @Test
+    void stats_countCreatedAndCancelledOrders() throws Exception {
+        ApiFixture api = new ApiFixture(mvc, om);
+        long userId = api.user("S");
+        long restaurantId = api.restaurant("Stats");
+        long variationId = api.variation(restaurantId, "350.00");
+
+        long[] orderIds = new long[2];
+        for (int i = 0; i < orderIds.length; i++) {
+            api.addToCart(userId, variationId, 1);
+            orderIds[i] = api.order(userId);
+        }
+        mvc.perform(delete("/orders/{id}", orderIds[1]))
+                .andExpect(status().isOk());
+
+        accumulator.flush();
+
+        mvc.perform(get("/restaurants/{id}/stats", restaurantId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.days", hasSize(1)))
+                .andExpect(jsonPath("$.total.created", is(2)))
+                .andExpect(jsonPath("$.total.cancelled", is(1)))
+                .andExpect(jsonPath("$.total.grossTotal", is(700.0)))
+                .andExpect(jsonPath("$.total.cancelledTotal", is(350.0)))
+                .andExpect(jsonPath("$.total.avgEtaMinutes", notNullValue()));
+
+        mvc.perform(get("/restaurants/{id}/stats", restaurantId)
+                        .param("from", "2024-02-01").param("to", "2024-01-01"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.code", is("BAD_RANGE")));
+    }
+}